@@ -0,0 +1,141 @@
+package com.example.memorygame.bench;
+
+import com.example.memorygame.cluster.ClusterNodes;
+import com.example.memorygame.history.GameHistory;
+import com.example.memorygame.journal.RoomJournal;
+import com.example.memorygame.metrics.GameMetrics;
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.sched.TimingWheel;
+import com.example.memorygame.service.BoardFactory;
+import com.example.memorygame.service.GameService;
+import com.example.memorygame.service.MoveGate;
+import com.example.memorygame.service.RoomLifecycle;
+import com.example.memorygame.service.RoomService;
+import com.example.memorygame.tournament.TournamentService;
+import com.example.memorygame.ws.CompactCodec;
+import com.example.memorygame.ws.GameWsService;
+import com.example.memorygame.ws.RoomPayloads;
+import com.example.memorygame.ws.RoomSnapshots;
+import com.example.memorygame.ws.SpectatorHub;
+import com.example.memorygame.ws.TurnTimerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verdrahtet die Services wie Spring, aber ohne Kontext und Broker:
+ * Nachrichten landen in einem zählenden Kanal statt bei Clients.
+ */
+final class BenchFixture implements AutoCloseable {
+
+    final ObjectMapper mapper = new ObjectMapper();
+    final SinkChannel channel = new SinkChannel();
+    final GameMetrics metrics = new GameMetrics(new SimpleMeterRegistry());
+    final RoomPayloads payloads = new RoomPayloads();
+    final RoomSnapshots snapshots = new RoomSnapshots(payloads, mapper, metrics);
+    final CompactCodec codec = new CompactCodec();
+    final GameWsService ws;
+    final GameScheduler scheduler;
+    final TurnTimerService timer;
+    final RoomService rooms;
+    final RoomJournal journal;
+    final RoomLifecycle lifecycle;
+    final GameService game;
+
+    /** @param timers false = geplante Tasks werden verworfen (misst nur den Befehlspfad) */
+    BenchFixture(boolean timers) {
+        SimpMessagingTemplate messaging = new SimpMessagingTemplate(channel);
+        messaging.setMessageConverter(new CompositeMessageConverter(List.of(
+                new StringMessageConverter(), new ByteArrayMessageConverter(), new MappingJackson2MessageConverter(mapper))));
+        scheduler = timers ? new GameScheduler(1, 512, 2, false, 0) : new DiscardingScheduler();
+        ClusterNodes cluster = new ClusterNodes("bench", List.of());
+        rooms = new RoomService(cluster, metrics, new BoardFactory("4x4,6x6", 64), 1_000_000, Duration.ZERO, 4, 6, 0.5, 0);
+        // ohne Zusammenfassen: jeder Broadcast wird gemessen; keine Zuschauer
+        ws = new GameWsService(messaging, payloads, snapshots, mapper, metrics, codec, true, scheduler, Duration.ZERO,
+                new SpectatorHub(rooms, cluster, codec, metrics, scheduler, Duration.ZERO));
+        journal = disabledJournal(rooms, scheduler);
+        timer = new TurnTimerService(ws, scheduler, journal, Duration.ofSeconds(5));
+        TournamentService tournaments = new TournamentService(rooms, messaging, scheduler, Duration.ofMillis(500), 50, 1000);
+        lifecycle = new RoomLifecycle(rooms, timer, ws, scheduler, journal, tournaments,
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1));
+        game = new GameService(rooms, ws, timer, scheduler, lifecycle, metrics, journal, tournaments,
+                new GameHistory(false, Path.of("unused"), 1, 1, false), new MoveGate(0, 0, scheduler));
+    }
+
+    /**
+     * Raum mit Spielern anlegen und starten; liefert den Raum (erster Spieler ist am Zug).
+     * Ein JSON-Abonnent wird vorgetäuscht, sonst kodiert GameWsService gar nichts; die Spieler
+     * werden wie per STOMP gebunden, sonst gelten sie als getrennt (Zug nur mit Schonfrist).
+     */
+    Room runningRoom(int players, int boardSize) {
+        Room room = game.createRoom();
+        room.connectionOpened(false);
+        for (int i = 0; i < players; i++) {
+            Player p = game.join(room.getPin(), "P" + i).join();
+            game.connect(room.getPin(), p.getId(), p.getToken()).join();
+        }
+        game.startGame(room.getPin(), boardSize).join();
+        return room;
+    }
+
+    private static RoomJournal disabledJournal(RoomService rooms, GameScheduler scheduler) {
+        try {
+            return new RoomJournal(rooms, scheduler, false, Path.of("unused"), DataSize.ofMegabytes(1),
+                    Duration.ofSeconds(1), Duration.ofMinutes(1));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        rooms.shutdown();
+    }
+
+    /** Zählt gesendete Nachrichten und Payload-Bytes. */
+    static final class SinkChannel implements MessageChannel {
+        final LongAdder messages = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            messages.increment();
+            if (message.getPayload() instanceof byte[] b) bytes.add(b.length);
+            return true;
+        }
+    }
+
+    /** Scheduler, der nichts ausführt – Mismatch-Rückdrehen und Zugablauf bleiben aus. */
+    static final class DiscardingScheduler extends GameScheduler {
+        private static final TimingWheel.Timeout NONE = new TimingWheel.Timeout() {
+            @Override public boolean cancel() { return false; }
+            @Override public boolean isCancelled() { return false; }
+            @Override public boolean isExpired() { return false; }
+        };
+
+        DiscardingScheduler() { super(100, 8, 1, false, 1); }
+
+        @Override
+        public TimingWheel.Timeout schedule(int lane, Runnable task, long delay, TimeUnit unit) {
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.memorygame.bench;
+
+import com.example.memorygame.model.CardState;
+import com.example.memorygame.model.Room;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nachrichtenaufbau und Serialisierung für GameWsService.broadcastRoomState,
+ * JSON und Binärformat ({@link com.example.memorygame.ws.CompactCodec}) im Vergleich.
+ * Vor jedem Delta wird eine Karte umgedreht, damit das Delta nicht leer ist.
+ * Läuft direkt auf dem Benchmark-Thread (ein Schreiber, wie in der Mailbox).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    @Param({"4", "10", "20"})
+    int boardSize;
+
+    @Param({"2", "8"})
+    int players;
+
+    BenchFixture f;
+    Room room;
+    int pos;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        f = new BenchFixture(false);
+        room = f.runningRoom(players, boardSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() { f.close(); }
+
+    private void flipCard() {
+        pos = (pos + 1) % room.getCardCount();
+        room.setCardState(pos, room.getCardState(pos) == CardState.HIDDEN ? CardState.REVEALED : CardState.HIDDEN);
+    }
+
+    @Benchmark
+    public Map<String, Object> deltaPayload() {
+        flipCard();
+        Map<String, Object> delta = f.payloads.delta(room, room.getVersion());
+        room.clearChanges();
+        return delta;
+    }
+
+    @Benchmark
+    public byte[] deltaSerialized() throws Exception {
+        flipCard();
+        byte[] json = f.mapper.writeValueAsBytes(f.payloads.delta(room, room.getVersion()));
+        room.clearChanges();
+        return json;
+    }
+
+    @Benchmark
+    public byte[] deltaCompact() {
+        flipCard();
+        byte[] bin = f.codec.delta(room, room.getVersion());
+        room.clearChanges();
+        return bin;
+    }
+
+    /** Kompletter Broadcast-Pfad inkl. Message-Konverter bis in den Kanal. */
+    @Benchmark
+    public void broadcastDelta() {
+        flipCard();
+        f.ws.broadcastRoomState(room);
+    }
+
+    @Benchmark
+    public void snapshotUncached(Blackhole bh) {
+        room.nextVersion();
+        bh.consume(f.snapshots.current(room));
+    }
+
+    @Benchmark
+    public void snapshotCached(Blackhole bh) {
+        bh.consume(f.snapshots.current(room));
+    }
+
+    @Benchmark
+    public byte[] snapshotCompact() {
+        return f.codec.snapshot(room);
+    }
+}
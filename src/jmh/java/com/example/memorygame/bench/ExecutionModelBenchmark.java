@@ -0,0 +1,95 @@
+package com.example.memorygame.bench;
+
+import com.example.memorygame.sched.GameScheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plattform-Pools gegen virtuelle Threads (spring.threads.virtual.enabled) unter blockierender Last.
+ *
+ * Im Hintergrund reicht ein Thread laufend Tasks ein, die 1 ms blockieren (volle Socket-Puffer,
+ * Journal-Flush) – so viele, dass der jeweilige Plattform-Pool zu 75 % belegt ist. Gemessen
+ * wird, wie lange ein kurzer Task derselben Ausführung darauf wartet (Perzentile per SampleTime):
+ *
+ * - timerLatency:   1-ms-Timer im GameScheduler (2 Threads bzw. virtuell) bis zur Ausführung
+ * - channelHandoff: Übergabe an einen Kanal-Executor (2 × Kerne Threads bzw. virtuell) bis zur Ausführung
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModelBenchmark {
+
+    private static final long BLOCK_NANOS = 1_000_000;
+    private static final double LOAD = 0.75;
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    GameScheduler scheduler;
+    ExecutorService channel;
+    Thread load;
+    volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        boolean virtual = threads.equals("virtual");
+        int timerThreads = 2;
+        int channelThreads = 2 * Runtime.getRuntime().availableProcessors();
+        scheduler = new GameScheduler(1, 512, timerThreads, virtual, 1);
+        channel = virtual ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(channelThreads);
+
+        long timerGap = (long) (BLOCK_NANOS / (LOAD * timerThreads));
+        long channelGap = (long) (BLOCK_NANOS / (LOAD * channelThreads));
+        running = true;
+        load = Thread.ofPlatform().daemon().name("bench-load").start(() -> {
+            long nextTimer = System.nanoTime(), nextChannel = nextTimer;
+            while (running) {
+                long now = System.nanoTime();
+                if (now >= nextTimer) {
+                    scheduler.schedule(ExecutionModelBenchmark::block, 0, TimeUnit.MILLISECONDS);
+                    nextTimer += timerGap;
+                }
+                if (now >= nextChannel) {
+                    channel.execute(ExecutionModelBenchmark::block);
+                    nextChannel += channelGap;
+                }
+                LockSupport.parkNanos(Math.min(nextTimer, nextChannel) - now);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        load.join();
+        scheduler.shutdown();
+        channel.shutdownNow();
+    }
+
+    @Benchmark
+    public void timerLatency() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.schedule(done::countDown, 1, TimeUnit.MILLISECONDS);
+        done.await();
+    }
+
+    @Benchmark
+    public void channelHandoff() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        channel.execute(done::countDown);
+        done.await();
+    }
+
+    // blockierende I/O: Plattform-Thread bleibt belegt, virtueller Thread gibt seinen Träger frei
+    private static void block() {
+        LockSupport.parkNanos(BLOCK_NANOS);
+    }
+}
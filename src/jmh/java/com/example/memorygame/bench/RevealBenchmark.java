@@ -0,0 +1,125 @@
+package com.example.memorygame.bench;
+
+import com.example.memorygame.model.CardState;
+import com.example.memorygame.model.Room;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameService.revealCard über die Raum-Mailbox (inkl. Broadcast in den Zählkanal).
+ *
+ * - matchPair:    zwei passende Karten (Score, Delta, neue Deadline)
+ * - mismatchPair: zwei unpassende Karten (Sperre + Delta), danach zurückgesetzt
+ * - contended*:   viele Threads auf einen gesperrten Raum bzw. je Thread ein eigener Raum –
+ *                 misst den Befehlspfad (Mailbox-Übergabe, Prüfungen) unter Konkurrenz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevealBenchmark {
+
+    /** Raum mit einem Spieler und 20x20-Board; Paare nach Position vorberechnet. */
+    @State(Scope.Thread)
+    public static class Board {
+        BenchFixture f;
+        Room room;
+        String player, token;
+        int[] first, second;     // Positionen je Paar-ID
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            f = new BenchFixture(false);
+            room = f.runningRoom(1, 20);
+            player = room.getCurrentPlayerId();
+            token = room.getCurrentPlayer().getToken();
+            indexPairs();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() { f.close(); }
+
+        void newBoardIfExhausted() {
+            if (next < first.length) return;
+            f.game.restartRound(room.getPin(), false).join();
+            indexPairs();
+        }
+
+        void reveal(int pos) {
+            f.game.revealCard(room.getPin(), player, token, pos).join();
+        }
+
+        private void indexPairs() {
+            int pairs = room.getCardCount() / 2;
+            first = new int[pairs];
+            second = new int[pairs];
+            java.util.Arrays.fill(first, -1);
+            for (int pos = 0; pos < room.getCardCount(); pos++) {
+                int p = room.getPairId(pos);
+                if (first[p] < 0) first[p] = pos; else second[p] = pos;
+            }
+            next = 0;
+        }
+    }
+
+    /** Raum in Vergleichssperre: jeder Reveal läuft durch die Mailbox und kehrt früh zurück. */
+    @State(Scope.Benchmark)
+    public static class LockedRoom {
+        BenchFixture f;
+        Room room;
+        String player, token;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            f = new BenchFixture(false);
+            room = f.runningRoom(1, 4);
+            player = room.getCurrentPlayerId();
+            token = room.getCurrentPlayer().getToken();
+            f.rooms.submit(room.getPin(), r -> { r.setRevealLock(true); return null; }).join();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() { f.close(); }
+    }
+
+    @State(Scope.Thread)
+    public static class OwnLockedRoom extends LockedRoom {}
+
+    @Benchmark
+    public void matchPair(Board b) {
+        b.newBoardIfExhausted();
+        b.reveal(b.first[b.next]);
+        b.reveal(b.second[b.next]);
+        b.next++;
+    }
+
+    @Benchmark
+    public void mismatchPair(Board b) {
+        int x = b.first[0], y = b.first[1];   // verschiedene Paare
+        b.reveal(x);
+        b.reveal(y);
+        // das Rückdrehen übernimmt hier der Benchmark (Scheduler verwirft den 900-ms-Task)
+        b.f.rooms.submit(b.room.getPin(), r -> {
+            r.setCardState(x, CardState.HIDDEN);
+            r.setCardState(y, CardState.HIDDEN);
+            r.clearFirstRevealedPos();
+            r.setRevealLock(false);
+            return null;
+        }).join();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void contendedSameRoom(LockedRoom s) {
+        s.f.game.revealCard(s.room.getPin(), s.player, s.token, 0).join();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void uncontendedOwnRoom(OwnLockedRoom s) {
+        s.f.game.revealCard(s.room.getPin(), s.player, s.token, 0).join();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.memorygame.bench;
+
+import com.example.memorygame.model.Room;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zugtimer über viele Räume mit dem echten GameScheduler (Timing-Wheel, 1-ms-Tick).
+ *
+ * - restartCountdowns: neue Deadline je Raum (planen + alten Timer stornieren)
+ * - expiryFanOut:      rooms Timer im selben Tick fällig, jeder reiht in seine Mailbox ein;
+ *                      gemessen bis alle gelaufen sind (Wert pro Timer)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurnTimerBenchmark {
+
+    @Param({"1000", "10000"})
+    int rooms;
+
+    BenchFixture f;
+    Room[] all;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        f = new BenchFixture(true);
+        all = new Room[rooms];
+        for (int i = 0; i < rooms; i++) all[i] = f.runningRoom(1, 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() { f.close(); }
+
+    @Benchmark
+    @OperationsPerInvocation(10000)
+    public void restartCountdowns() {
+        // pro Aufruf 10 000 Starts, verteilt über die Räume
+        for (int i = 0; i < 10000; i++) f.timer.startCountdown(all[i % rooms]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10000)
+    public void expiryFanOut() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(10000);
+        for (int i = 0; i < 10000; i++) {
+            Room room = all[i % rooms];
+            f.scheduler.schedule(() -> room.getMailbox().execute(done::countDown), 1, TimeUnit.MILLISECONDS);
+        }
+        if (!done.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("Timer nicht abgelaufen");
+    }
+}
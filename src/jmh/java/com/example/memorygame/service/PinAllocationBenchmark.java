@@ -0,0 +1,91 @@
+package com.example.memorygame.service;
+
+import com.example.memorygame.cluster.ClusterNodes;
+import com.example.memorygame.metrics.GameMetrics;
+import com.example.memorygame.model.Room;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raum anlegen + wieder freigeben bei unterschiedlicher Belegung des PIN-Raums.
+ *
+ * - createRoom:             RoomService.createRoom/remove mit PinAllocator (nur 4 Stellen bzw. 4–6)
+ * - allocator:              PinAllocator allein
+ * - legacyRejectionSampling: früheres generatePin (Zufallsziehung bis zum Treffer) als Vergleich
+ *
+ * fill = belegte 4-stellige PINs vor der Messung (von 10 000).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PinAllocationBenchmark {
+
+    @Param({"0", "5000", "9000", "9900"})
+    int fill;
+
+    @Param({"4", "6"})
+    int maxDigits;
+
+    RoomService rooms;
+    PinAllocator allocator;
+    Set<String> legacyTaken;
+    SecureRandom rnd;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // widen-at 1.0: Belegung bleibt in der 4-stelligen Stufe, bis sie voll ist
+        rooms = new RoomService(new ClusterNodes("bench", List.of()), new GameMetrics(new SimpleMeterRegistry()), new BoardFactory("", 0), 1_000_000, Duration.ZERO, 4, maxDigits, 1.0, 0);
+        for (int i = 0; i < fill; i++) rooms.createRoom();
+
+        allocator = new PinAllocator(4, maxDigits, 1.0, 1.0, 0, p -> true, new Random(42));
+        for (int i = 0; i < fill; i++) allocator.allocate(0);
+
+        rnd = new SecureRandom();
+        legacyTaken = new HashSet<>();
+        while (legacyTaken.size() < fill) legacyTaken.add(legacyPin());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() { rooms.shutdown(); }
+
+    @Benchmark
+    public Room createRoom() {
+        Room room = rooms.createRoom();
+        rooms.remove(room);
+        return room;
+    }
+
+    @Benchmark
+    public String allocator() {
+        String pin = allocator.allocate(0);
+        allocator.release(pin, 0);
+        return pin;
+    }
+
+    @Benchmark
+    public String legacyRejectionSampling() {
+        String pin;
+        do { pin = legacyPin(); } while (legacyTaken.contains(pin));
+        legacyTaken.add(pin);
+        legacyTaken.remove(pin);
+        return pin;
+    }
+
+    private String legacyPin() {
+        final String digits = "0123456789";
+        StringBuilder sb = new StringBuilder(4);
+        for (int i = 0; i < 4; i++) sb.append(digits.charAt(rnd.nextInt(digits.length())));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.memorygame.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raum-Affinität per PIN: jede PIN gehört genau einem Knoten (Rendezvous-Hashing
+ * über die Knoten-IDs). Nur dieser Knoten hält den Raum im Speicher; die übrigen
+ * verweisen per 421 bzw. STOMP-Fehler auf ihn.
+ *
+ * Konfiguration:
+ *   memorygame.cluster.node-id = a
+ *   memorygame.cluster.nodes   = a=http://app-a:8080,b=http://app-b:8080
+ * Ohne Knotenliste (Standard) ist jede PIN lokal.
+ */
+@Component
+public class ClusterNodes {
+
+    private final String localId;
+    private final Map<String, String> urls;   // Knoten-ID -> Basis-URL
+    private final String[] ids;
+    private final long[] idHashes;
+
+    public ClusterNodes(@Value("${memorygame.cluster.node-id:local}") String localId,
+                        @Value("${memorygame.cluster.nodes:}") List<String> nodes) {
+        this.localId = localId.trim();
+        this.urls = parse(nodes);
+        if (!urls.isEmpty() && !urls.containsKey(this.localId))
+            throw new IllegalStateException("memorygame.cluster.node-id '" + this.localId + "' fehlt in memorygame.cluster.nodes");
+        this.ids = urls.keySet().toArray(String[]::new);
+        this.idHashes = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) idHashes[i] = mix(ids[i].hashCode());
+    }
+
+    public String localId() { return localId; }
+
+    public boolean isClustered() { return ids.length > 1; }
+
+    public int nodeCount() { return Math.max(1, ids.length); }
+
+    /** Knoten-ID, der die PIN gehört. */
+    public String ownerOf(String pin) {
+        if (ids.length == 0) return localId;
+        long pinHash = mix(pin.hashCode());
+        int best = 0;
+        long bestScore = Long.MIN_VALUE;
+        for (int i = 0; i < ids.length; i++) {
+            long score = mix(pinHash ^ idHashes[i]);
+            if (score > bestScore) { bestScore = score; best = i; }
+        }
+        return ids[best];
+    }
+
+    public boolean isLocal(String pin) {
+        return ids.length <= 1 || localId.equals(ownerOf(pin));
+    }
+
+    /** Basis-URL des Besitzer-Knotens (für Redirects), leer ohne Knotenliste. */
+    public String ownerUrl(String pin) {
+        return urls.getOrDefault(ownerOf(pin), "");
+    }
+
+    /** Fehler für eine PIN, die einem anderen Knoten gehört. */
+    public ForeignRoomException foreign(String pin) {
+        return new ForeignRoomException(ownerOf(pin), ownerUrl(pin));
+    }
+
+    // --- Helper ---
+
+    private static Map<String, String> parse(List<String> nodes) {
+        Map<String, String> m = new LinkedHashMap<>();
+        for (String n : nodes) {
+            if (n == null || n.isBlank()) continue;
+            int eq = n.indexOf('=');
+            if (eq <= 0) throw new IllegalStateException("Ungültiger Knoten in memorygame.cluster.nodes: " + n);
+            String url = n.substring(eq + 1).trim();
+            m.put(n.substring(0, eq).trim(), url.endsWith("/") ? url.substring(0, url.length() - 1) : url);
+        }
+        return m;
+    }
+
+    /** Finalizer aus MurmurHash3 (fmix64) – gleichmäßige Verteilung auch bei fortlaufenden PINs. */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
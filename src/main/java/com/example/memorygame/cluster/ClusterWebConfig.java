@@ -0,0 +1,26 @@
+package com.example.memorygame.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ClusterWebConfig implements WebMvcConfigurer {
+
+    private final ClusterNodes cluster;
+    private final ObjectMapper mapper;
+
+    public ClusterWebConfig(ClusterNodes cluster, ObjectMapper mapper) {
+        this.cluster = cluster;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // nur wenn wirklich mehrere Knoten konfiguriert sind
+        if (cluster.isClustered()) {
+            registry.addInterceptor(new RoomAffinityInterceptor(cluster, mapper)).addPathPatterns("/api/rooms/*", "/api/rooms/*/**");
+        }
+    }
+}
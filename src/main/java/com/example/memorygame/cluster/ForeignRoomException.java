@@ -0,0 +1,19 @@
+package com.example.memorygame.cluster;
+
+/** Die PIN gehört einem anderen Knoten; {@link #getOwnerUrl()} zeigt dorthin. */
+public class ForeignRoomException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String owner;
+    private final String ownerUrl;
+
+    public ForeignRoomException(String owner, String ownerUrl) {
+        super("Raum liegt auf Knoten " + owner);
+        this.owner = owner;
+        this.ownerUrl = ownerUrl;
+    }
+
+    public String getOwner() { return owner; }
+    public String getOwnerUrl() { return ownerUrl; }
+}
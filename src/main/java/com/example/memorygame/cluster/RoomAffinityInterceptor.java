@@ -0,0 +1,51 @@
+package com.example.memorygame.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * REST-Aufrufe auf /api/rooms/{pin}/** für fremde PINs → 421 Misdirected Request
+ * mit dem Besitzer im Header. Der Load-Balancer sollte per PIN routen; das hier
+ * fängt nur Fehlleitungen ab (z. B. nach Knotenwechsel). Der Body hat dieselbe Form
+ * wie der STOMP-Fehler für fremde PINs ("error", "node") plus "owner".
+ */
+public class RoomAffinityInterceptor implements HandlerInterceptor {
+
+    public static final String OWNER_HEADER = "X-Memorygame-Node";
+    public static final String OWNER_URL_HEADER = "X-Memorygame-Node-Url";
+
+    // 421 Misdirected Request (RFC 9110), in HttpStatus nicht enthalten
+    private static final int MISDIRECTED_REQUEST = 421;
+
+    private final ClusterNodes cluster;
+    private final ObjectMapper mapper;
+
+    public RoomAffinityInterceptor(ClusterNodes cluster, ObjectMapper mapper) {
+        this.cluster = cluster;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        @SuppressWarnings("unchecked")
+        Map<String, String> vars = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String pin = vars == null ? null : vars.get("pin");
+        if (pin == null || cluster.isLocal(pin)) return true;
+
+        String owner = cluster.ownerOf(pin), ownerUrl = cluster.ownerUrl(pin);
+        response.setStatus(MISDIRECTED_REQUEST);
+        response.setHeader(OWNER_HEADER, owner);
+        response.setHeader(OWNER_URL_HEADER, ownerUrl);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        mapper.writeValue(response.getWriter(),
+                Map.of("error", "Raum liegt auf Knoten " + owner, "owner", owner, "node", ownerUrl));
+        return false;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.memorygame.history;
+
+import com.example.memorygame.model.Room;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Historie beendeter Spiele: Ergebnisse, Züge, Dauer und Spielerzüge, dauerhaft in {@link HistoryStore}.
+ *
+ * {@link #finished} läuft in der Mailbox des Raums und legt das Spiel nur in eine begrenzte
+ * Warteschlange (memorygame.history.queue-capacity). Ein eigener Thread schreibt in Stapeln
+ * bis memorygame.history.batch-size (ein Schreibvorgang, ein force je Stapel). Ist die
+ * Warteschlange voll, weil die Platte nicht nachkommt, wird das Spiel verworfen und gezählt –
+ * Züge warten nie auf die Platte.
+ */
+@Service
+public class GameHistory {
+
+    private static final Logger log = LoggerFactory.getLogger(GameHistory.class);
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int batchSize;
+    private final boolean fsync;
+    private final BlockingQueue<GameRecord> queue;
+
+    private final LongAdder written = new LongAdder(), dropped = new LongAdder(), failed = new LongAdder();
+    private HistoryStore store;
+    private Thread writer;
+    private volatile boolean running;
+
+    public GameHistory(@Value("${memorygame.history.enabled:false}") boolean enabled,
+                       @Value("${memorygame.history.dir:data/history}") Path dir,
+                       @Value("${memorygame.history.queue-capacity:10000}") int queueCapacity,
+                       @Value("${memorygame.history.batch-size:256}") int batchSize,
+                       @Value("${memorygame.history.fsync:true}") boolean fsync) {
+        this.enabled = enabled;
+        this.dir = dir;
+        this.batchSize = batchSize;
+        this.fsync = fsync;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) return;
+        store = new HistoryStore(dir);
+        running = true;
+        writer = Thread.ofPlatform().name("history-writer").daemon().start(this::writeLoop);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    // --- Raumseite (Mailbox des Raums) ---
+
+    /** Spiel beendet: Ergebnis übernehmen, geschrieben wird später. */
+    public void finished(Room room) {
+        if (!enabled) return;
+        if (!queue.offer(GameRecord.of(room, System.currentTimeMillis()))) dropped.increment();
+    }
+
+    // --- Abfragen ---
+
+    /** Gespeicherte Spiele, neueste zuerst (noch nicht geschriebene fehlen). */
+    public List<GameRecord> games(int page, int size) {
+        if (!enabled) return List.of();
+        try {
+            return store.page(page, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int gameCount() { return enabled ? store.count() : 0; }
+
+    /** Spiele eines Spielers, neueste zuerst; unbekannter Spieler → IllegalArgumentException. */
+    public List<GameRecord> playerGames(String playerId, int page, int size) {
+        try {
+            List<GameRecord> games = enabled ? store.playerPage(playerId, page, size) : null;
+            if (games == null) throw new IllegalArgumentException("Spieler nicht gefunden");
+            return games;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Summen eines Spielers; unbekannter Spieler → IllegalArgumentException. */
+    public PlayerStats playerStats(String playerId) {
+        PlayerStats s = enabled ? store.stats(playerId) : null;
+        if (s == null) throw new IllegalArgumentException("Spieler nicht gefunden");
+        return s;
+    }
+
+    // --- Metriken ---
+    public long writtenGames() { return written.sum(); }
+    public long droppedGames() { return dropped.sum(); }
+    public long failedGames() { return failed.sum(); }
+    public int queuedGames() { return queue.size(); }
+
+    // --- intern ---
+
+    // kein Interrupt zum Beenden: ein unterbrochener FileChannel-Aufruf schließt den Kanal
+    private void writeLoop() {
+        List<GameRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                GameRecord first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                int n = store.append(batch, fsync);
+                written.add(n);
+                if (n < batch.size()) {
+                    failed.add(batch.size() - n);
+                    log.warn("Historie: {} Spiele nicht kodierbar, ausgelassen", batch.size() - n);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Schreib-Thread muss weiterlaufen, sonst läuft die Warteschlange voll
+                failed.add(batch.size());
+                log.warn("Historie: {} Spiele nicht geschrieben ({})", batch.size(), e.toString());
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (!enabled) return;
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));     // Rest der Warteschlange noch schreiben
+        store.close();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.memorygame.history;
+
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+import com.example.memorygame.model.RoundStats;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ein beendetes Spiel (eine Runde) in der Historie: Ergebnis je Spieler, Züge, Dauer, Spielerzüge.
+ * partial = Runde lief über einen Neustart des Servers, Zeiten davor fehlen.
+ */
+public record GameRecord(String roomId, String pin, int round, int columns, int cards,
+                         long startedAt, long finishedAt, int moves, boolean partial,
+                         List<PlayerResult> players, List<RoundStats.Turn> turns) {
+
+    /** rank: 1 = meiste Punkte, Gleichstand = gleicher Platz. */
+    public record PlayerResult(String playerId, String name, int score, int rank) { }
+
+    @JsonProperty("durationMs")
+    public long durationMs() { return finishedAt - startedAt; }
+
+    /** Ergebnis des gerade beendeten Spiels; läuft in der Mailbox des Raums. */
+    public static GameRecord of(Room room, long finishedAt) {
+        List<Player> sorted = new ArrayList<>(room.getPlayersInJoinOrder());
+        sorted.sort(Comparator.comparingInt(Player::getScore).reversed());
+        List<PlayerResult> players = new ArrayList<>(sorted.size());
+        int rank = 0, prev = Integer.MIN_VALUE;
+        for (int i = 0; i < sorted.size(); i++) {
+            Player p = sorted.get(i);
+            if (p.getScore() != prev) { rank = i + 1; prev = p.getScore(); }
+            players.add(new PlayerResult(p.getId(), p.getName(), p.getScore(), rank));
+        }
+        RoundStats s = room.getRoundStats();
+        return new GameRecord(room.getId(), room.getPin(), room.getRound(), room.getBoardSize(), room.getCardCount(),
+                s == null ? finishedAt : s.getStartedAt(), finishedAt, s == null ? 0 : s.getMoves(), s == null || s.isPartial(),
+                List.copyOf(players), s == null ? List.of() : List.copyOf(s.getTurns()));
+    }
+}
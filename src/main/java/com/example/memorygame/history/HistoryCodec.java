@@ -0,0 +1,91 @@
+package com.example.memorygame.history;
+
+import com.example.memorygame.model.RoundStats;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binärformat eines {@link GameRecord} in der Historie:
+ * <pre>
+ * u8 Format, str roomId, str pin, int round, int columns, int cards,
+ * long startedAt, long finishedAt, int moves, u8 partial,
+ * int n Spieler × (str id, str name, int score, int rank),
+ * int n Spielerzüge × (u16 Spielerindex, int durationMs, u16 reveals, u16 pairs, u8 TurnEnd)
+ * </pre>
+ * Strings wie DataOutput.writeUTF; der Spielerindex zeigt in die Spielerliste davor
+ * (0xFFFF = Spieler nicht mehr im Raum).
+ */
+final class HistoryCodec {
+
+    static final int FORMAT = 1;
+    private static final int NO_PLAYER = 0xFFFF;
+
+    private HistoryCodec() {}
+
+    static byte[] encode(GameRecord r) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + r.players().size() * 48 + r.turns().size() * 11);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeUTF(r.roomId());
+            out.writeUTF(r.pin());
+            out.writeInt(r.round());
+            out.writeInt(r.columns());
+            out.writeInt(r.cards());
+            out.writeLong(r.startedAt());
+            out.writeLong(r.finishedAt());
+            out.writeInt(r.moves());
+            out.writeByte(r.partial() ? 1 : 0);
+            Map<String, Integer> index = new HashMap<>();
+            out.writeInt(r.players().size());
+            for (GameRecord.PlayerResult p : r.players()) {
+                index.put(p.playerId(), index.size());
+                out.writeUTF(p.playerId());
+                out.writeUTF(p.name());
+                out.writeInt(p.score());
+                out.writeInt(p.rank());
+            }
+            out.writeInt(r.turns().size());
+            for (RoundStats.Turn t : r.turns()) {
+                out.writeShort(index.getOrDefault(t.playerId(), NO_PLAYER));
+                out.writeInt(t.durationMs());
+                out.writeShort(Math.min(t.reveals(), 0xFFFF));
+                out.writeShort(Math.min(t.pairs(), 0xFFFF));
+                out.writeByte(t.end().ordinal());
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream wirft nicht; writeUTF aber bei Strings über 64 KB
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static GameRecord decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int format = in.readUnsignedByte();
+        if (format != FORMAT) throw new IOException("Unbekanntes Historien-Format " + format);
+        String roomId = in.readUTF(), pin = in.readUTF();
+        int round = in.readInt(), columns = in.readInt(), cards = in.readInt();
+        long startedAt = in.readLong(), finishedAt = in.readLong();
+        int moves = in.readInt();
+        boolean partial = in.readUnsignedByte() != 0;
+        int n = in.readInt();
+        List<GameRecord.PlayerResult> players = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            players.add(new GameRecord.PlayerResult(in.readUTF(), in.readUTF(), in.readInt(), in.readInt()));
+        }
+        n = in.readInt();
+        List<RoundStats.Turn> turns = new ArrayList<>(n);
+        RoundStats.TurnEnd[] ends = RoundStats.TurnEnd.values();
+        for (int i = 0; i < n; i++) {
+            int idx = in.readUnsignedShort();
+            turns.add(new RoundStats.Turn(idx < players.size() ? players.get(idx).playerId() : null,
+                    in.readInt(), in.readUnsignedShort(), in.readUnsignedShort(), ends[in.readUnsignedByte()]));
+        }
+        return new GameRecord(roomId, pin, round, columns, cards, startedAt, finishedAt, moves, partial,
+                List.copyOf(players), List.copyOf(turns));
+    }
+}
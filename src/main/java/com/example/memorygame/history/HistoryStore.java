@@ -0,0 +1,202 @@
+package com.example.memorygame.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only Datei der beendeten Spiele (games.log) mit Index im Speicher.
+ *
+ * Satz: int Länge, int CRC32C der Nutzdaten, Nutzdaten ({@link HistoryCodec}). Beim Öffnen wird
+ * die Datei einmal gelesen: Dateiposition je Spiel und je Spieler, dazu die Summen je Spieler;
+ * ein halb geschriebener Rest wird abgeschnitten. Abfragen lesen nur die Sätze der Seite
+ * (positionelles Lesen, parallel zum Schreiben).
+ *
+ * {@link #append} ruft nur der Schreib-Thread von {@link GameHistory} auf; der Index wird erst
+ * nach dem Schreiben erweitert, Leser sehen also nie einen unfertigen Satz.
+ */
+final class HistoryStore implements AutoCloseable {
+
+    static final String FILE = "games.log";
+    private static final int HEADER = 8;
+
+    private final FileChannel ch;
+    private long end;
+
+    // Index, unter Lock auf this
+    private long[] offsets = new long[1024];
+    private int count;
+    private final Map<String, Totals> players = new HashMap<>();
+
+    HistoryStore(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        ch = FileChannel.open(dir.resolve(FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = ch.size(), pos = 0;
+        while (pos + HEADER <= size) {
+            ByteBuffer header = read(pos, HEADER);
+            int len = header.getInt();
+            int crc = header.getInt();
+            if (len <= 0 || pos + HEADER + len > size) break;
+            byte[] payload = read(pos + HEADER, len).array();
+            if (crc(payload) != crc) break;
+            GameRecord r;
+            try {
+                r = HistoryCodec.decode(payload);
+            } catch (IOException e) {
+                break;
+            }
+            index(r, pos);
+            pos += HEADER + len;
+        }
+        if (pos < size) ch.truncate(pos);
+        end = pos;
+    }
+
+    /**
+     * Hängt die Spiele als einen Schreibvorgang an; force = danach auf die Platte zwingen.
+     * Nicht kodierbare Spiele werden einzeln ausgelassen, der Rest des Stapels wird geschrieben.
+     * @return Anzahl geschriebener Spiele
+     */
+    int append(List<GameRecord> batch, boolean force) throws IOException {
+        List<GameRecord> records = new ArrayList<>(batch.size());
+        List<byte[]> payloads = new ArrayList<>(batch.size());
+        int total = 0;
+        for (GameRecord r : batch) {
+            byte[] p;
+            try {
+                p = HistoryCodec.encode(r);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            records.add(r);
+            payloads.add(p);
+            total += HEADER + p.length;
+        }
+        if (records.isEmpty()) return 0;
+        ByteBuffer buf = ByteBuffer.allocate(total);
+        for (byte[] p : payloads) buf.putInt(p.length).putInt(crc(p)).put(p);
+        buf.flip();
+        long start = end;
+        try {
+            while (buf.hasRemaining()) end += ch.write(buf, end);
+            if (force) ch.force(false);
+        } catch (IOException e) {
+            // halben Stapel verwerfen, sonst stünden spätere Sätze hinter einem kaputten
+            end = start;
+            ch.truncate(start);
+            throw e;
+        }
+
+        synchronized (this) {
+            long pos = start;
+            for (int i = 0; i < records.size(); i++) {
+                index(records.get(i), pos);
+                pos += HEADER + payloads.get(i).length;
+            }
+        }
+        return records.size();
+    }
+
+    synchronized int count() { return count; }
+
+    /** Spiele, neueste zuerst. */
+    List<GameRecord> page(int page, int size) throws IOException {
+        long[] at;
+        synchronized (this) {
+            at = newestFirst(offsets, count, page, size);
+        }
+        return load(at);
+    }
+
+    /** Spiele eines Spielers, neueste zuerst; null = Spieler unbekannt. */
+    List<GameRecord> playerPage(String playerId, int page, int size) throws IOException {
+        long[] at;
+        synchronized (this) {
+            Totals t = players.get(playerId);
+            if (t == null) return null;
+            at = newestFirst(t.games, t.count, page, size);
+        }
+        return load(at);
+    }
+
+    synchronized PlayerStats stats(String playerId) {
+        Totals t = players.get(playerId);
+        return t == null ? null : t.snapshot(playerId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        ch.close();
+    }
+
+    // --- intern ---
+
+    private void index(GameRecord r, long pos) {
+        if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+        offsets[count++] = pos;
+        for (GameRecord.PlayerResult p : r.players()) players.computeIfAbsent(p.playerId(), id -> new Totals()).add(r, p, pos);
+    }
+
+    private static long[] newestFirst(long[] all, int n, int page, int size) {
+        long from = n - 1 - (long) page * size;
+        if (from < 0) return new long[0];
+        long[] at = new long[(int) Math.min(size, from + 1)];
+        for (int i = 0; i < at.length; i++) at[i] = all[(int) from - i];
+        return at;
+    }
+
+    private List<GameRecord> load(long[] at) throws IOException {
+        List<GameRecord> out = new ArrayList<>(at.length);
+        for (long pos : at) {
+            int len = read(pos, HEADER).getInt();
+            out.add(HistoryCodec.decode(read(pos + HEADER, len).array()));
+        }
+        return out;
+    }
+
+    private ByteBuffer read(long pos, int len) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(len);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, pos + buf.position()) < 0) throw new IOException("Historie endet unerwartet bei " + pos);
+        }
+        return buf.flip();
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static final class Totals {
+        String name;
+        long[] games = new long[4];
+        int count, wins, bestScore, turns;
+        long totalScore, turnMs, lastPlayedAt;
+
+        void add(GameRecord r, GameRecord.PlayerResult p, long pos) {
+            if (count == games.length) games = Arrays.copyOf(games, count * 2);
+            games[count++] = pos;
+            name = p.name();
+            if (p.rank() == 1) wins++;
+            totalScore += p.score();
+            bestScore = Math.max(bestScore, p.score());
+            for (var t : r.turns()) {
+                if (!p.playerId().equals(t.playerId())) continue;
+                turns++;
+                turnMs += t.durationMs();
+            }
+            lastPlayedAt = Math.max(lastPlayedAt, r.finishedAt());
+        }
+
+        PlayerStats snapshot(String playerId) {
+            return new PlayerStats(playerId, name, count, wins, totalScore, bestScore,
+                    count == 0 ? 0 : (double) totalScore / count, turns, turns == 0 ? 0 : turnMs / turns, lastPlayedAt);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.memorygame.history;
+
+/** Summen eines Spielers über alle seine Spiele in der Historie. wins = Spiele auf Platz 1 (auch geteilt). */
+public record PlayerStats(String playerId, String name, int games, int wins, long totalScore, int bestScore,
+                          double avgScore, int turns, long avgTurnMs, long lastPlayedAt) { }
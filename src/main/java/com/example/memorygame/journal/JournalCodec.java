@@ -0,0 +1,119 @@
+package com.example.memorygame.journal;
+
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binärformat der Journal-Sätze und des Snapshots.
+ *
+ * Ereignis: u8 Typ, long Version, str PIN, danach je Typ:
+ * <pre>
+ * CREATED          str roomId
+ * JOINED           str playerId, str name, str token (fehlt in älteren Sätzen)
+ * ROUND_STARTED    u8 resetScores, int boardSize, int n, n × int pairId
+ * REVEALED         str playerId, int pos
+ * MISMATCH_HIDDEN  int first, int second
+ * TURN_TIMED_OUT   –
+ * REMOVED          –
+ * PRESENCE         str playerId, u8 connected
+ * </pre>
+ * Raum im Snapshot: str id, str pin, long lsn, long version, u8 state, str currentPlayerId,
+ * int firstRevealedPos, u8 revealLock, int n Spieler × (str id, str name, str token, int score, u8 connected),
+ * int boardSize, int n Karten × (int pairId, u8 state).
+ * Strings: u16 Länge + UTF-8.
+ */
+final class JournalCodec {
+
+    static final byte CREATED = 1, JOINED = 2, ROUND_STARTED = 3, REVEALED = 4,
+            MISMATCH_HIDDEN = 5, TURN_TIMED_OUT = 6, REMOVED = 7, PRESENCE = 8;
+
+    static final int SNAPSHOT_MAGIC = 0x4D474A33;      // "MGJ3" (Spieler mit Token)
+    static final int SNAPSHOT_MAGIC_V2 = 0x4D474A32;   // "MGJ2" (ohne Token) – wird noch gelesen
+
+    private JournalCodec() {}
+
+    static Writer event(byte type, Room room) {
+        Writer w = new Writer(64);
+        w.u8(type);
+        w.i64(room.getVersion());
+        w.str(room.getPin());
+        return w;
+    }
+
+    /** Vollständiger Zustand eines Raums; läuft in dessen Mailbox. */
+    static byte[] room(Room room) {
+        Writer w = new Writer(96 + room.getCardCount() * 5);
+        w.str(room.getId());
+        w.str(room.getPin());
+        w.i64(room.getJournalLsn());
+        w.i64(room.getVersion());
+        w.u8(room.getState().ordinal());
+        w.str(room.getCurrentPlayerId() == null ? "" : room.getCurrentPlayerId());
+        w.i32(room.getFirstRevealedPos());
+        w.u8(room.isRevealLock() ? 1 : 0);
+        w.i32(room.getPlayers().size());
+        for (Player p : room.getPlayers()) {
+            w.str(p.getId());
+            w.str(p.getName());
+            w.str(p.getToken());
+            w.i32(p.getScore());
+            w.u8(p.isConnected() ? 1 : 0);
+        }
+        w.i32(room.getBoardSize());
+        w.i32(room.getCardCount());
+        for (int pos = 0; pos < room.getCardCount(); pos++) {
+            w.i32(room.getPairId(pos));
+            w.u8(room.getCardState(pos).code());
+        }
+        return w.toArray();
+    }
+
+    static String str(ByteBuffer in) {
+        int n = Short.toUnsignedInt(in.getShort());
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), n, StandardCharsets.UTF_8);
+        } else {
+            byte[] b = new byte[n];
+            in.get(in.position(), b);
+            s = new String(b, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + n);
+        return s;
+    }
+
+    /** Wachsender Puffer für einen Satz. */
+    static final class Writer {
+        private ByteBuffer buf;
+
+        Writer(int capacity) { buf = ByteBuffer.allocate(capacity); }
+
+        private void ensure(int n) {
+            if (buf.remaining() < n) {
+                ByteBuffer b = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+                buf.flip();
+                b.put(buf);
+                buf = b;
+            }
+        }
+
+        Writer u8(int v) { ensure(1); buf.put((byte) v); return this; }
+        Writer i32(int v) { ensure(4); buf.putInt(v); return this; }
+        Writer i64(long v) { ensure(8); buf.putLong(v); return this; }
+
+        Writer str(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            if (b.length > 0xFFFF) throw new IllegalArgumentException("String zu lang");
+            ensure(2 + b.length);
+            buf.putShort((short) b.length);
+            buf.put(b);
+            return this;
+        }
+
+        byte[] toArray() { return Arrays.copyOf(buf.array(), buf.position()); }
+    }
+}
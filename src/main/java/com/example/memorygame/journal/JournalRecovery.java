@@ -0,0 +1,204 @@
+package com.example.memorygame.journal;
+
+import com.example.memorygame.model.CardState;
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+import com.example.memorygame.service.GameRules;
+import com.example.memorygame.service.GameService;
+import com.example.memorygame.service.RoomService;
+import com.example.memorygame.ws.TurnTimerService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Baut beim Start die Räume aus Snapshot + Journal wieder auf, bevor Anfragen angenommen werden.
+ *
+ * Der Snapshot wird gelesen, danach werden die Sätze ab seiner Start-LSN direkt aus den
+ * abgebildeten Segmenten angewendet (kein JSON, keine Objekte pro Satz außer Strings).
+ * Anschließend gelten alle Spieler als getrennt, bis sich ihre Clients neu binden, und jeder
+ * laufende Raum bekommt einen frischen Zugtimer und eine neue (partielle) Aufzeichnung für die
+ * Historie; ein unterbrochener
+ * Vergleich (Sperre aktiv) wird sofort aufgelöst. Die Version jedes Raums liegt danach
+ * über allen vor dem Neustart verschickten, damit Clients das nächste Vollbild annehmen.
+ */
+@Component
+public class JournalRecovery {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalRecovery.class);
+
+    private final RoomJournal journal;
+    private final RoomService rooms;
+    private final GameService game;
+    private final TurnTimerService timer;
+
+    /** PIN -> wiederhergestellter Raum (nur während des Replays). */
+    private final Map<String, Room> restored = new HashMap<>();
+
+    public JournalRecovery(RoomJournal journal, RoomService rooms, GameService game, TurnTimerService timer) {
+        this.journal = journal; this.rooms = rooms; this.game = game; this.timer = timer;
+    }
+
+    @PostConstruct
+    void recover() throws IOException {
+        if (!journal.isEnabled()) return;
+        long t0 = System.nanoTime();
+        long from = readSnapshot(journal.snapshotFile());
+        int fromSnapshot = restored.size();
+        long records = journal.log().replay(from, this::apply);
+
+        for (Room room : restored.values()) {
+            room.restoreVersion(room.getVersion() + 1);
+            room.getMailbox().execute(() -> {
+                game.sessionsLost(room);
+                if (room.getState() != Room.State.RUNNING) return;
+                game.beginRoundStats(room, true);       // Zeiten vor dem Neustart sind nicht im Journal
+                resume(room);
+            });
+        }
+        journal.markRecovered();
+        if (!restored.isEmpty() || records > 0) {
+            log.info("Journal: {} Räume wiederhergestellt ({} aus Snapshot, {} Sätze) in {} ms",
+                    restored.size(), fromSnapshot, records, (System.nanoTime() - t0) / 1_000_000);
+        }
+        restored.clear();
+    }
+
+    // Laufendes Spiel fortsetzen: offenen Vergleich auflösen, neuer Zugtimer
+    private void resume(Room room) {
+        if (room.isRevealLock()) {
+            int first = -1, second = -1;
+            for (int pos = 0; pos < room.getCardCount(); pos++) {
+                if (room.getCardState(pos) != CardState.REVEALED) continue;
+                if (first < 0) first = pos; else second = pos;
+            }
+            if (first >= 0 && second >= 0) {
+                game.hideMismatch(room, first, second);
+                return;
+            }
+            room.setRevealLock(false);
+        }
+        timer.startCountdown(room);
+    }
+
+    // --- Snapshot ---
+
+    private long readSnapshot(Path file) throws IOException {
+        if (!Files.exists(file)) return 0;
+        ByteBuffer in;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        int magic = in.getInt();
+        if (magic != JournalCodec.SNAPSHOT_MAGIC && magic != JournalCodec.SNAPSHOT_MAGIC_V2)
+            throw new IllegalStateException("Kein Journal-Snapshot: " + file);
+        boolean tokens = magic == JournalCodec.SNAPSHOT_MAGIC;
+        long start = in.getLong();
+        int n = in.getInt();
+        for (int i = 0; i < n; i++) {
+            int len = in.getInt();
+            readRoom(in.slice(in.position(), len), tokens);
+            in.position(in.position() + len);
+        }
+        return start;
+    }
+
+    // ohne Token (alter Snapshot) bekommt der Spieler ein neues und muss neu beitreten
+    private void readRoom(ByteBuffer in, boolean tokens) {
+        Room room = restore(JournalCodec.str(in), JournalCodec.str(in));
+        if (room == null) return;
+        room.setJournalLsn(in.getLong());
+        room.restoreVersion(in.getLong());
+        room.setState(Room.State.values()[in.get()]);
+        String current = JournalCodec.str(in);
+        int firstRevealed = in.getInt();
+        boolean lock = in.get() != 0;
+        for (int i = in.getInt(); i > 0; i--) {
+            String id = JournalCodec.str(in), name = JournalCodec.str(in);
+            Player p = tokens ? new Player(id, name, JournalCodec.str(in)) : new Player(id, name);
+            p.setScore(in.getInt());
+            p.setConnected(in.get() != 0);
+            room.addPlayer(p);
+        }
+        int boardSize = in.getInt();
+        int cards = in.getInt();
+        int[] pairIds = new int[cards];
+        byte[] states = new byte[cards];
+        for (int pos = 0; pos < cards; pos++) {
+            pairIds[pos] = in.getInt();
+            states[pos] = in.get();
+        }
+        room.initBoard(boardSize, pairIds);
+        for (int pos = 0; pos < cards; pos++) room.setCardState(pos, CardState.of(states[pos]));
+        room.setCurrentPlayerId(current.isEmpty() ? null : current);
+        room.setFirstRevealedPos(firstRevealed);
+        room.setRevealLock(lock);
+    }
+
+    // --- Replay ---
+
+    private void apply(long lsn, ByteBuffer in) {
+        byte type = in.get();
+        long version = in.getLong();
+        String pin = JournalCodec.str(in);
+
+        if (type == JournalCodec.CREATED) {
+            if (restored.containsKey(pin)) return;     // schon im Snapshot (vor CREATED erfasst)
+            Room room = restore(JournalCodec.str(in), pin);
+            if (room != null) room.setJournalLsn(lsn);
+            return;
+        }
+        Room room = restored.get(pin);
+        if (room == null || lsn <= room.getJournalLsn()) return;   // entfernt bzw. im Snapshot enthalten
+        room.setJournalLsn(lsn);
+        room.restoreVersion(Math.max(room.getVersion(), version));
+
+        switch (type) {
+            case JournalCodec.JOINED -> {
+                String id = JournalCodec.str(in), name = JournalCodec.str(in);
+                room.addPlayer(in.hasRemaining() ? new Player(id, name, JournalCodec.str(in)) : new Player(id, name));
+            }
+            case JournalCodec.ROUND_STARTED -> {
+                boolean reset = in.get() != 0;
+                int size = in.getInt();
+                int[] pairIds = new int[in.getInt()];
+                for (int i = 0; i < pairIds.length; i++) pairIds[i] = in.getInt();
+                GameRules.startRound(room, size, pairIds, reset);
+            }
+            case JournalCodec.REVEALED -> GameRules.reveal(room, JournalCodec.str(in), in.getInt());
+            case JournalCodec.MISMATCH_HIDDEN -> GameRules.hideMismatch(room, in.getInt(), in.getInt());
+            case JournalCodec.TURN_TIMED_OUT -> GameRules.turnTimeout(room);
+            case JournalCodec.PRESENCE -> {
+                Player p = room.getPlayer(JournalCodec.str(in));
+                if (p != null) p.setConnected(in.get() != 0);
+            }
+            case JournalCodec.REMOVED -> {
+                restored.remove(pin);
+                rooms.remove(room);
+            }
+            default -> throw new IllegalStateException("Unbekannter Journal-Satz " + type + " (LSN " + lsn + ")");
+        }
+    }
+
+    // PIN gehört inzwischen einem anderen Knoten oder ist ungültig -> Raum verwerfen
+    private Room restore(String id, String pin) {
+        try {
+            Room room = rooms.restore(id, pin);
+            restored.put(pin, room);
+            return room;
+        } catch (IllegalStateException e) {
+            log.warn("Journal: Raum {} nicht wiederhergestellt ({})", pin, e.getMessage());
+            return null;
+        }
+    }
+}
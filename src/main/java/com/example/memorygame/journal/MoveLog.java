@@ -0,0 +1,197 @@
+package com.example.memorygame.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only Log in memory-mapped Segmentdateien (segment-{erste LSN}.log).
+ *
+ * Satz: int Länge, int CRC32C der Nutzdaten, long LSN, Nutzdaten. Länge 0 markiert das Ende
+ * (neue Segmente sind mit Nullen gefüllt). Die Länge wird zuletzt geschrieben, damit ein
+ * halb geschriebener Satz beim Lesen als Ende erkannt wird; beim Öffnen wird ein solcher
+ * Rest abgeschnitten.
+ *
+ * Schreiben ist ein Kopieren in den Page-Cache: ein Absturz der JVM verliert nichts,
+ * ein Absturz des Betriebssystems höchstens die Sätze seit dem letzten {@link #force()}.
+ * Gelesen wird sequenziell direkt aus der Abbildung, ohne Kopie pro Satz.
+ *
+ * append/roll/force/deleteBefore sind synchronisiert (kurzer kritischer Abschnitt),
+ * {@link #replay} ist nur vor dem ersten append gedacht.
+ */
+public final class MoveLog implements AutoCloseable {
+
+    static final int HEADER = 16;
+
+    /** Empfängt beim Replay die Nutzdaten eines Satzes (nur während des Aufrufs gültig). */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long lsn, ByteBuffer payload);
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final TreeMap<Long, Path> segments = new TreeMap<>();   // erste LSN -> Datei
+
+    private MappedByteBuffer current;
+    private long nextLsn;
+
+    public MoveLog(Path dir, int segmentBytes) throws IOException {
+        if (segmentBytes < 4096) throw new IllegalArgumentException("Segment zu klein");
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(f -> {
+                String n = f.getFileName().toString();
+                if (n.startsWith("segment-") && n.endsWith(".log"))
+                    segments.put(Long.parseLong(n.substring(8, n.length() - 4)), f);
+            });
+        }
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            current = map(last.getValue(), FileChannel.MapMode.READ_WRITE);
+            Scan end = scan(current, last.getKey(), Long.MAX_VALUE, null);
+            current.position(end.position);
+            nextLsn = end.nextLsn;
+            // halb geschriebenen Satz löschen, sonst könnte er hinter neuen Sätzen wieder auftauchen
+            if (end.position + HEADER <= current.limit()) {
+                int torn = Math.max(0, current.getInt(end.position));
+                int stop = (int) Math.min(current.limit(), (long) end.position + HEADER + torn);
+                for (int i = end.position; i < stop; i++) current.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /** Hängt einen Satz an; @return seine LSN */
+    public synchronized long append(byte[] payload) {
+        int size = HEADER + payload.length;
+        if (size > segmentBytes) throw new IllegalArgumentException("Satz größer als ein Segment");
+        if (current.remaining() < size) openSegment(nextLsn);
+
+        int pos = current.position();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        long lsn = nextLsn++;
+        current.putInt(pos + 4, (int) crc.getValue());
+        current.putLong(pos + 8, lsn);
+        current.put(pos + HEADER, payload);
+        current.putInt(pos, payload.length);          // zuletzt: ab hier gilt der Satz
+        current.position(pos + size);
+        return lsn;
+    }
+
+    /** Beginnt ein neues Segment; @return dessen erste LSN (Startpunkt für einen Snapshot) */
+    public synchronized long roll() {
+        if (current.position() > 0) openSegment(nextLsn);
+        return nextLsn;
+    }
+
+    public synchronized long nextLsn() {
+        return nextLsn;
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /** Schreibt die Seiten des aktuellen Segments auf die Platte. */
+    public synchronized void force() {
+        current.force();
+    }
+
+    /** Löscht Segmente, deren Sätze alle vor lsn liegen. */
+    public synchronized void deleteBefore(long lsn) {
+        while (segments.size() > 1) {
+            Map.Entry<Long, Path> first = segments.firstEntry();
+            Long next = segments.higherKey(first.getKey());
+            if (next == null || next > lsn) break;
+            try {
+                Files.deleteIfExists(first.getValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segments.remove(first.getKey());
+        }
+    }
+
+    /**
+     * Liefert alle gültigen Sätze ab fromLsn in Reihenfolge.
+     * @return Anzahl gelieferter Sätze
+     */
+    public long replay(long fromLsn, RecordHandler handler) throws IOException {
+        long n = 0;
+        Long start = segments.floorKey(fromLsn);
+        for (Map.Entry<Long, Path> e : segments.tailMap(start == null ? Long.MIN_VALUE : start, true).entrySet()) {
+            MappedByteBuffer buf = map(e.getValue(), FileChannel.MapMode.READ_ONLY);
+            n += scan(buf, e.getKey(), fromLsn, handler).delivered;
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized void close() {
+        current.force();
+    }
+
+    // --- intern ---
+
+    private record Scan(int position, long nextLsn, long delivered) {}
+
+    // Liest bis zum Ende (Länge 0) oder zum ersten ungültigen Satz
+    private static Scan scan(ByteBuffer buf, long firstLsn, long fromLsn, RecordHandler handler) {
+        CRC32C crc = new CRC32C();
+        int pos = 0;
+        long expected = firstLsn, delivered = 0;
+        while (pos + HEADER <= buf.limit()) {
+            int len = buf.getInt(pos);
+            if (len <= 0 || pos + HEADER + len > buf.limit()) break;
+            long lsn = buf.getLong(pos + 8);
+            if (lsn != expected) break;
+            ByteBuffer payload = buf.slice(pos + HEADER, len);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buf.getInt(pos + 4)) break;
+            if (handler != null && lsn >= fromLsn) {
+                handler.accept(lsn, payload);
+                delivered++;
+            }
+            expected++;
+            pos += HEADER + len;
+        }
+        return new Scan(pos, expected, delivered);
+    }
+
+    private void openSegment(long firstLsn) {
+        Path f = dir.resolve(String.format("segment-%019d.log", firstLsn));
+        try {
+            if (current != null) current.force();
+            current = map(f, FileChannel.MapMode.READ_WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.put(firstLsn, f);
+        nextLsn = firstLsn;
+    }
+
+    private MappedByteBuffer map(Path f, FileChannel.MapMode mode) throws IOException {
+        boolean write = mode == FileChannel.MapMode.READ_WRITE;
+        try (FileChannel ch = write
+                ? FileChannel.open(f, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(f, StandardOpenOption.READ)) {
+            // Abbildung bleibt nach dem Schließen des Kanals gültig
+            return ch.map(mode, 0, write ? Math.max(segmentBytes, ch.size()) : ch.size());
+        }
+    }
+}
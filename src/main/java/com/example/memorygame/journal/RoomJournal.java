@@ -0,0 +1,199 @@
+package com.example.memorygame.journal;
+
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.service.RoomService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ereignis-Journal der Räume dieses Knotens: jede Zustandsänderung (Beitritt, Start/Neustart,
+ * Aufdecken, Zurückdrehen, Zugablauf, Verbindungsstatus, Entfernen) wird als kleiner Binärsatz an das
+ * {@link MoveLog} gehängt. Zufall steckt im Satz (Spieler-ID, gemischtes Board), der Rest
+ * ergibt sich beim Replay aus {@link com.example.memorygame.service.GameRules}.
+ *
+ * Regelmäßig entsteht ein Snapshot aller Räume (snapshot.bin); danach werden ältere
+ * Segmente gelöscht. Der Snapshot beginnt mit einem neuen Segment (Start-LSN) und liest
+ * jeden Raum in dessen Mailbox mit seiner letzten LSN – beim Replay werden ab der Start-LSN
+ * nur Sätze angewendet, die neuer sind als der Raum im Snapshot.
+ *
+ * Die Methoden für Ereignisse laufen in der Mailbox des Raums, nach der Änderung und vor
+ * dem Broadcast. Wiederhergestellt wird beim Start von {@link JournalRecovery}.
+ */
+@Service
+public class RoomJournal {
+
+    static final String SNAPSHOT = "snapshot.bin";
+
+    private final RoomService rooms;
+    private final GameScheduler scheduler;
+    private final boolean enabled;
+    private final Path dir;
+    private final MoveLog log;
+    private final long flushMs, snapshotMs;
+
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+    private volatile boolean recovered;
+    private volatile long snapshotLsn;
+
+    public RoomJournal(RoomService rooms, GameScheduler scheduler,
+                       @Value("${memorygame.journal.enabled:false}") boolean enabled,
+                       @Value("${memorygame.journal.dir:data/journal}") Path dir,
+                       @Value("${memorygame.journal.segment-size:64MB}") DataSize segmentSize,
+                       @Value("${memorygame.journal.flush-interval:1s}") Duration flushInterval,
+                       @Value("${memorygame.journal.snapshot-interval:1m}") Duration snapshotInterval) throws IOException {
+        this.rooms = rooms;
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.dir = dir;
+        this.log = enabled ? new MoveLog(dir, (int) Math.min(Integer.MAX_VALUE, segmentSize.toBytes())) : null;
+        this.flushMs = flushInterval.toMillis();
+        this.snapshotMs = snapshotInterval.toMillis();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        scheduler.schedule(this::flushAndReschedule, flushMs, TimeUnit.MILLISECONDS);
+        scheduler.schedule(this::snapshotAndReschedule, snapshotMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    // --- Ereignisse (Mailbox des Raums) ---
+
+    public void created(Room room) {
+        if (enabled) append(room, JournalCodec.event(JournalCodec.CREATED, room).str(room.getId()));
+    }
+
+    public void joined(Room room, Player p) {
+        if (enabled) append(room, JournalCodec.event(JournalCodec.JOINED, room).str(p.getId()).str(p.getName()).str(p.getToken()));
+    }
+
+    public void roundStarted(Room room, boolean resetScores) {
+        if (!enabled) return;
+        JournalCodec.Writer w = JournalCodec.event(JournalCodec.ROUND_STARTED, room)
+                .u8(resetScores ? 1 : 0).i32(room.getBoardSize()).i32(room.getCardCount());
+        for (int pos = 0; pos < room.getCardCount(); pos++) w.i32(room.getPairId(pos));
+        append(room, w);
+    }
+
+    public void revealed(Room room, String playerId, int pos) {
+        if (enabled) append(room, JournalCodec.event(JournalCodec.REVEALED, room).str(playerId).i32(pos));
+    }
+
+    public void mismatchHidden(Room room, int first, int second) {
+        if (enabled) append(room, JournalCodec.event(JournalCodec.MISMATCH_HIDDEN, room).i32(first).i32(second));
+    }
+
+    public void turnTimedOut(Room room) {
+        if (enabled) append(room, JournalCodec.event(JournalCodec.TURN_TIMED_OUT, room));
+    }
+
+    /** Verbindungsstatus gehört zum Zustand: die Zugreihenfolge überspringt getrennte Spieler. */
+    public void presence(Room room, Player p) {
+        if (enabled) append(room, JournalCodec.event(JournalCodec.PRESENCE, room).str(p.getId()).u8(p.isConnected() ? 1 : 0));
+    }
+
+    public void removed(Room room) {
+        if (enabled) append(room, JournalCodec.event(JournalCodec.REMOVED, room));
+    }
+
+    private void append(Room room, JournalCodec.Writer w) {
+        room.setJournalLsn(log.append(w.toArray()));
+    }
+
+    // --- Snapshot ---
+
+    /**
+     * Schreibt einen Snapshot aller Räume und löscht danach die nicht mehr nötigen Segmente.
+     * @return false, wenn schon einer läuft, nichts Neues geschrieben wurde oder die Wiederherstellung fehlt
+     */
+    public boolean snapshot() {
+        if (!enabled || !recovered || log.nextLsn() == snapshotLsn || !snapshotRunning.compareAndSet(false, true)) return false;
+        try {
+            long start = log.roll();
+            List<CompletableFuture<byte[]>> parts = new ArrayList<>();
+            for (Room room : rooms.allRooms()) {
+                parts.add(CompletableFuture.supplyAsync(
+                        () -> room.getState() == Room.State.CLOSED ? null : JournalCodec.room(room), room.getMailbox()));
+            }
+            Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                List<byte[]> blobs = new ArrayList<>(parts.size());
+                for (CompletableFuture<byte[]> f : parts) {
+                    byte[] b = f.join();
+                    if (b != null) blobs.add(b);
+                }
+                ch.write(ByteBuffer.allocate(16).putInt(JournalCodec.SNAPSHOT_MAGIC).putLong(start).putInt(blobs.size()).flip());
+                for (byte[] b : blobs) ch.write(new ByteBuffer[]{ByteBuffer.allocate(4).putInt(b.length).flip(), ByteBuffer.wrap(b)});
+                ch.force(true);
+            }
+            Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.deleteBefore(start);
+            snapshotLsn = log.nextLsn();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            snapshotRunning.set(false);
+        }
+    }
+
+    // --- für JournalRecovery ---
+
+    MoveLog log() { return log; }
+
+    Path snapshotFile() { return dir.resolve(SNAPSHOT); }
+
+    void markRecovered() {
+        recovered = true;
+        snapshotLsn = -1;
+    }
+
+    // --- intern ---
+
+    private void flushAndReschedule() {
+        try {
+            log.force();
+        } finally {
+            scheduler.schedule(this::flushAndReschedule, flushMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // auf einem virtuellen Thread: wartet auf die Mailboxen, soll den Timer-Pool nicht blockieren
+    private void snapshotAndReschedule() {
+        Thread.ofVirtual().name("journal-snapshot").start(() -> {
+            try {
+                snapshot();
+            } finally {
+                scheduler.schedule(this::snapshotAndReschedule, snapshotMs, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    @PreDestroy
+    void close() {
+        if (enabled) log.close();
+    }
+}
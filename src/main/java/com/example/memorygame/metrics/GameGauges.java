@@ -0,0 +1,93 @@
+package com.example.memorygame.metrics;
+
+import com.example.memorygame.history.GameHistory;
+import com.example.memorygame.model.Room;
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.service.RoomLifecycle;
+import com.example.memorygame.service.RoomService;
+import com.example.memorygame.tournament.TournamentService;
+import com.example.memorygame.ws.SpectatorHub;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Zustandsgrößen, die erst beim Abfragen (Scrape) berechnet werden:
+ * Räume je Zustand und je Shard, Spieler, Verbindungen, Zuschauer, Turniere, Mailbox-Konkurrenz, Timer-Wheel, Räumungen, Historie.
+ */
+@Component
+public class GameGauges implements MeterBinder {
+
+    private final RoomService rooms;
+    private final GameScheduler scheduler;
+    private final RoomLifecycle lifecycle;
+    private final SpectatorHub spectators;
+    private final TournamentService tournaments;
+    private final GameHistory history;
+
+    public GameGauges(RoomService rooms, GameScheduler scheduler, RoomLifecycle lifecycle, SpectatorHub spectators,
+                      TournamentService tournaments, GameHistory history) {
+        this.rooms = rooms; this.scheduler = scheduler; this.lifecycle = lifecycle; this.spectators = spectators;
+        this.tournaments = tournaments; this.history = history;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Room.State state : Room.State.values()) {
+            if (state == Room.State.CLOSED) continue;   // geschlossene Räume sind schon entfernt
+            Gauge.builder("memorygame.rooms", rooms, r -> r.allRooms().stream().filter(x -> x.getState() == state).count())
+                    .description("Räume je Zustand")
+                    .tag("state", state.name())
+                    .register(registry);
+        }
+        Gauge.builder("memorygame.rooms.max", rooms, RoomService::getMaxRooms).register(registry);
+        for (int i = 0; i < rooms.shardCount(); i++) {
+            int shard = i;
+            String tag = Integer.toString(i);
+            Gauge.builder("memorygame.shard.rooms", rooms, r -> r.shardRooms(shard)).tag("shard", tag).register(registry);
+            FunctionCounter.builder("memorygame.shard.commands", rooms, r -> r.shardCommands(shard))
+                    .description("Über die Mailboxen des Shards ausgeführte Befehle")
+                    .tag("shard", tag)
+                    .register(registry);
+        }
+        Gauge.builder("memorygame.players", rooms, r -> r.allRooms().stream().mapToInt(x -> x.getPlayers().size()).sum())
+                .description("Spieler in allen Räumen")
+                .register(registry);
+        Gauge.builder("memorygame.connections", rooms, r -> r.allRooms().stream().mapToInt(Room::getConnections).sum())
+                .description("STOMP-Abos auf Raum-Topics")
+                .register(registry);
+        Gauge.builder("memorygame.spectators", spectators, SpectatorHub::viewerCount)
+                .description("Zuschauer-Verbindungen (/ws-watch)")
+                .register(registry);
+        Gauge.builder("memorygame.tournaments", tournaments, TournamentService::tournamentCount).register(registry);
+        FunctionCounter.builder("memorygame.mailbox.contended", rooms, RoomService::contendedSubmits)
+                .description("Befehle, die hinter einem laufenden Befehl desselben Raums warten mussten")
+                .register(registry);
+        FunctionCounter.builder("memorygame.rooms.evicted", lifecycle, RoomLifecycle::evictedRooms)
+                .register(registry);
+
+        Gauge.builder("memorygame.history.queued", history, GameHistory::queuedGames)
+                .description("Beendete Spiele, die auf den Schreib-Thread warten")
+                .register(registry);
+        FunctionCounter.builder("memorygame.history.written", history, GameHistory::writtenGames).register(registry);
+        FunctionCounter.builder("memorygame.history.dropped", history, GameHistory::droppedGames)
+                .description("Verworfen, weil die Warteschlange voll war (Platte zu langsam)")
+                .register(registry);
+        FunctionCounter.builder("memorygame.history.failed", history, GameHistory::failedGames).register(registry);
+
+        Gauge.builder("memorygame.scheduler.pending", scheduler, GameScheduler::pendingTimers)
+                .description("Geplante, noch nicht fällige Timer")
+                .register(registry);
+        FunctionCounter.builder("memorygame.scheduler.fired", scheduler, GameScheduler::firedTimers).register(registry);
+        FunctionCounter.builder("memorygame.scheduler.cancelled", scheduler, GameScheduler::cancelledTimers).register(registry);
+        Gauge.builder("memorygame.scheduler.lateness.max", scheduler, GameScheduler::maxLatenessMillis)
+                .baseUnit("milliseconds")
+                .description("Größte Verspätung eines Timers gegenüber seiner Deadline")
+                .register(registry);
+        Gauge.builder("memorygame.scheduler.lateness.avg", scheduler, GameScheduler::avgLatenessMillis)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.memorygame.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messpunkte im Spielpfad (Micrometer). Die Services melden hier Ereignisse;
+ * Zustandsgrößen (Räume, Timer, Mailboxen) registriert {@link GameGauges}.
+ *
+ * - memorygame.command.execution  Zeit eines Befehls in der Raum-Mailbox (früher: synchronized(room))
+ * - memorygame.command.latency    Einreihen bis fertig, inkl. Wartezeit hinter anderen Befehlen
+ * - memorygame.broadcast.bytes / .serialization  Größe und Jackson-Zeit je Nachrichtentyp
+ * - memorygame.reveal.rejected    ignorierte/abgelehnte Klicks nach Grund (z. B. Vergleichssperre)
+ * - memorygame.room.players       Spieler je Raum beim Spielstart
+ * - memorygame.broadcast.coalesced  Broadcasts, die in ein späteres Delta eingeflossen sind
+ * - memorygame.mailbox.failed     Befehle, die in einer Raum-Mailbox mit Exception endeten
+ *
+ * Meter werden je Tag-Wert einmal angelegt und gecacht – kein Builder-Lookup pro Aufruf.
+ */
+@Component
+public class GameMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> execution = new ConcurrentHashMap<>();
+    private final Map<String, Timer> latency = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> broadcastBytes = new ConcurrentHashMap<>();
+    private final Map<String, Timer> serialization = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+    private final DistributionSummary playersPerRoom;
+    private final Counter coalesced;
+    private final Counter mailboxFailed;
+
+    public GameMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.playersPerRoom = DistributionSummary.builder("memorygame.room.players")
+                .description("Spieler je Raum beim Spielstart")
+                .register(registry);
+        this.coalesced = Counter.builder("memorygame.broadcast.coalesced")
+                .description("Zusammengefasste (nicht einzeln verschickte) Broadcasts")
+                .register(registry);
+        this.mailboxFailed = Counter.builder("memorygame.mailbox.failed")
+                .description("Befehle, die in einer Raum-Mailbox mit Exception endeten")
+                .register(registry);
+    }
+
+    public MeterRegistry registry() { return registry; }
+
+    /** Ein Befehl ist in der Mailbox gelaufen. */
+    public void command(String command, long queuedNanos, long executionNanos) {
+        execution.computeIfAbsent(command, c -> Timer.builder("memorygame.command.execution")
+                .description("Ausführungszeit in der Raum-Mailbox")
+                .tag("command", c)
+                .publishPercentileHistogram()
+                .register(registry)).record(executionNanos, TimeUnit.NANOSECONDS);
+        latency.computeIfAbsent(command, c -> Timer.builder("memorygame.command.latency")
+                .description("Einreihen bis Ende der Ausführung")
+                .tag("command", c)
+                .publishPercentileHistogram()
+                .register(registry)).record(queuedNanos + executionNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Nachricht für ein Raum-Topic serialisiert (type = delta | snapshot). */
+    public void serialized(String type, int bytes, long nanos) {
+        broadcastBytes.computeIfAbsent(type, t -> DistributionSummary.builder("memorygame.broadcast.bytes")
+                .description("Payload-Größe je Nachricht")
+                .baseUnit("bytes")
+                .tag("type", t)
+                .register(registry)).record(bytes);
+        serialization.computeIfAbsent(type, t -> Timer.builder("memorygame.broadcast.serialization")
+                .description("JSON-Serialisierung je Nachricht")
+                .tag("type", t)
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void revealRejected(String reason) {
+        rejected.computeIfAbsent(reason, r -> Counter.builder("memorygame.reveal.rejected")
+                .description("Ignorierte oder abgelehnte Klicks")
+                .tag("reason", r)
+                .register(registry)).increment();
+    }
+
+    public void roomStarted(int players) {
+        playersPerRoom.record(players);
+    }
+
+    public void coalesced() {
+        coalesced.increment();
+    }
+
+    public void mailboxTaskFailed() {
+        mailboxFailed.increment();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.memorygame.model;
+
+/** Zustand einer Karte; im Room als byte (ordinal) gespeichert. */
+public enum CardState {
+    HIDDEN, REVEALED, MATCHED;
+
+    private static final CardState[] VALUES = values();
+
+    public byte code() { return (byte) ordinal(); }
+    public static CardState of(byte code) { return VALUES[code]; }
+}
@@ -1,16 +1,58 @@
 package com.example.memorygame.model;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
 public class Player {
+    private static final SecureRandom TOKENS = new SecureRandom();
+
     private final String id;
     private final String name;
+    private final String token;        // Geheimnis des Spielers (nur in der Antwort auf join): bindet REST-Klicks und STOMP-Sessions
     private int score = 0;
-    private boolean connected = true;
+    private boolean connected = false; // erst mit gebundener STOMP-Session true; ohne: Zug wird verkürzt/übersprungen
+    private int sessions = 0;          // gebundene STOMP-Sessions (mehrere Tabs möglich), nur Mailbox
+    private int slot = -1;             // Index in der Zugreihenfolge des Raums (setzt Room.addPlayer)
 
-    public Player(String id, String name) { this.id = id; this.name = name; }
+    public Player(String id, String name) { this(id, name, newToken()); }
+    public Player(String id, String name, String token) { this.id = id; this.name = name; this.token = token; }
     public String getId() { return id; }
     public String getName() { return name; }
+    public String getToken() { return token; }
+    public boolean hasToken(String t) { return sameToken(token, t); }
+
+    /** 128 Bit Zufall, URL-sicher. */
+    public static String newToken() {
+        byte[] b = new byte[16];
+        TOKENS.nextBytes(b);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(b);
+    }
+
+    /** Vergleich in konstanter Zeit; null passt nie. */
+    public static boolean sameToken(String expected, String given) {
+        return expected != null && given != null
+                && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), given.getBytes(StandardCharsets.UTF_8));
+    }
     public int getScore() { return score; }
     public void setScore(int s) { score = s; }
     public boolean isConnected() { return connected; }
     public void setConnected(boolean c) { connected = c; }
+    /** @return true, wenn der Spieler dadurch (wieder) als verbunden gilt */
+    public boolean sessionOpened() {
+        sessions++;
+        if (connected) return false;
+        connected = true;
+        return true;
+    }
+    /** @return true, wenn der Spieler mit dieser Session seine letzte verloren hat */
+    public boolean sessionClosed() {
+        if (sessions == 0 || --sessions > 0 || !connected) return false;
+        connected = false;
+        return true;
+    }
+    public int getSessions() { return sessions; }
+    public int getSlot() { return slot; }
+    void setSlot(int slot) { this.slot = slot; }
 }
@@ -1,67 +1,289 @@
 package com.example.memorygame.model;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Room {
 
-    public enum State { LOBBY, RUNNING, FINISHED }
+    public enum State { LOBBY, RUNNING, FINISHED, CLOSED }
 
     // --- Grunddaten ---
     private final String id;     // UUID
     private final String pin;    // Game-PIN
-    private State state = State.LOBBY;
+    private volatile State state = State.LOBBY;   // volatile: der Lifecycle-Sweep liest außerhalb der Mailbox
 
-    // Spieler in Beitrittsreihenfolge
-    private final Map<String, Player> players = new LinkedHashMap<>();
+    // Alle Mutationen laufen über diese Mailbox (ein Schreiber pro Raum)
+    private final Executor mailbox;
+    private volatile int shard;   // Shard im RoomService = Spur der Timer (GameScheduler), setzt nur der RoomService
+
+    // Spieler: ID -> Spieler und Zugreihenfolge (= Beitrittsreihenfolge, Index = Player.slot)
+    public static final int NO_PLAYER = -1;
+    private final Map<String, Player> players = new HashMap<>();
+    private final List<Player> turnOrder = new ArrayList<>();
+    private final List<Player> turnOrderView = Collections.unmodifiableList(turnOrder);
 
     // --- Spielzustand ---
-    private String currentPlayerId;    // null in der Lobby
-    private int timeLeft = 0;          // Sekunden
+    private int currentSlot = NO_PLAYER;   // Spieler am Zug, NO_PLAYER in der Lobby
+    private long turnDeadline = 0;     // Zugende (epoch ms), 0 = kein laufender Zug
 
     // Aufdecken-Status (für Züge)
-    private Integer firstRevealedPos = null;  // erste Karte im aktuellen Zug
+    public static final int NO_CARD = -1;
+    private int firstRevealedPos = NO_CARD;   // erste Karte im aktuellen Zug
     private boolean revealLock = false;       // blockt Klicks beim Vergleichen
 
-    // --- Board ---
-    private int boardSize = 4;               // z. B. 4 => 4x4
-    private final List<Card> board = new ArrayList<>();
+    /**
+     * Unveränderlicher Auszug des Zugzustands für die Vorprüfung von Klicks außerhalb der Mailbox.
+     * playerToken ist das Token des Spielers am Zug (nur serverseitig, für REST-Klicks).
+     */
+    public record TurnGate(State state, String playerId, String playerToken, boolean locked, int cardCount) {
+        public boolean tokenMatches(String token) { return Player.sameToken(playerToken, token); }
+    }
+    private volatile TurnGate turnGate = new TurnGate(State.LOBBY, null, null, false, 0);
+
+    // --- Board (primitiv, Index = Position) ---
+    private int round = 0;                   // zählt Board-Neuaufbauten (Start/Neustart)
+    private int boardSize = 4;               // Spalten, z. B. 4 => 4x4 (Zeilen = Karten / Spalten)
+    private int[] pairIds = new int[0];      // Paar-ID je Position – NICHT an Clients senden
+    private byte[] cardStates = new byte[0]; // CardState.code() je Position
+    private int matchedCards = 0;            // Anzahl MATCHED-Karten -> O(1)-Endeprüfung
 
     // Zuordnung Paar-ID -> Emoji (nur serverseitig gespeichert)
     private final Map<Integer, String> pairSymbols = new HashMap<>();
 
-    public Room(String id, String pin) {
+    // --- Versionierung für das Delta-Protokoll ---
+    private volatile long version = 0;                          // steigt mit jeder Broadcast-Nachricht
+    private final BitSet changedCards = new BitSet();           // Positionen seit letztem Broadcast geändert
+    private final Set<String> changedPlayers = new LinkedHashSet<>();
+    private boolean boardReset = true;                          // Board neu aufgebaut -> Vollbild senden
+
+    // --- Ausgang: Zusammenfassen von Broadcasts (nur Mailbox, siehe GameWsService) ---
+    private long lastBroadcastNanos = Long.MIN_VALUE / 2;       // Zeitpunkt der letzten Raum-Nachricht
+    private boolean broadcastPending;                           // Änderungen warten auf den verzögerten Flush
+    private boolean flushScheduled;                             // verzögerter Flush ist geplant
+    private int broadcastSlot = NO_PLAYER;                      // Spieler am Zug in der letzten Nachricht
+    private State broadcastState;                               // Status in der letzten Nachricht
+
+    // --- Journal ---
+    private long journalLsn = -1;                               // letzter Journal-Eintrag dieses Raums
+
+    // --- Historie (nur Mailbox) ---
+    private RoundStats roundStats;                              // Verlauf der laufenden Runde, null vor dem Start
+
+    // --- Lebenszyklus (von RoomLifecycle ausgewertet, epoch ms) ---
+    private volatile long lastActivity = System.currentTimeMillis();  // letzter Befehl über die Mailbox
+    private volatile long stateSince = lastActivity;                  // letzter Zustandswechsel
+    private final AtomicInteger connections = new AtomicInteger();    // STOMP-Abos auf das Raum-Topic
+    private final AtomicInteger binaryConnections = new AtomicInteger(); // davon im Binärformat (.bin)
+    private volatile long lastConnected = lastActivity;               // zuletzt mindestens ein Abo
+
+    /** Serialisiertes Vollbild (JSON) einer bestimmten Version – geteilt von REST, Broadcast und Resync. */
+    public record Snapshot(long version, byte[] json) {}
+    private volatile Snapshot snapshot;
+
+    public Room(String id, String pin, Executor mailbox) {
         this.id = id;
         this.pin = pin;
+        this.mailbox = mailbox;
     }
 
     // --- Getter/Setter Grunddaten ---
     public String getId() { return id; }
     public String getPin() { return pin; }
     public State getState() { return state; }
-    public void setState(State state) { this.state = state; }
+    public void setState(State state) {
+        if (this.state != state) stateSince = System.currentTimeMillis();
+        this.state = state;
+        publishTurnGate();
+    }
+    public Executor getMailbox() { return mailbox; }
+    public int getShard() { return shard; }
+    public void setShard(int shard) { this.shard = shard; }
+
+    // --- Lebenszyklus ---
+    public long getLastActivity() { return lastActivity; }
+    public void touch() { lastActivity = System.currentTimeMillis(); }
+    public long getStateSince() { return stateSince; }
+
+    public int getConnections() { return connections.get(); }
+    public int getBinaryConnections() { return binaryConnections.get(); }
+    public void connectionOpened(boolean binary) {
+        if (binary) binaryConnections.incrementAndGet();
+        connections.incrementAndGet();
+        lastConnected = System.currentTimeMillis();
+    }
+    public void connectionClosed(boolean binary) {
+        if (binary) binaryConnections.decrementAndGet();
+        connections.decrementAndGet();
+        lastConnected = System.currentTimeMillis();
+    }
+    /** Zeitpunkt, seit dem niemand mehr verbunden ist (bzw. jetzt, solange jemand verbunden ist). */
+    public long getLastConnected() { return connections.get() > 0 ? System.currentTimeMillis() : lastConnected; }
+
+    /** Raum wird verworfen: Status CLOSED, neue Runde macht ausstehende Rückruf-Tasks wirkungslos. */
+    public void close() {
+        setState(State.CLOSED);
+        turnDeadline = 0;
+        round++;
+    }
 
     // --- Spieler ---
-    public Collection<Player> getPlayers() { return players.values(); }
-    public List<Player> getPlayersInJoinOrder() { return new ArrayList<>(players.values()); }
-    public void addPlayer(Player p) { players.put(p.getId(), p); }
+    // Sichten ohne Kopie, nur in der Mailbox benutzen
+    public Collection<Player> getPlayers() { return turnOrderView; }
+    public List<Player> getPlayersInJoinOrder() { return turnOrderView; }
+    public int getPlayerCount() { return turnOrder.size(); }
+    public Player getPlayer(String playerId) { return players.get(playerId); }
+    public Player getPlayerAt(int slot) { return turnOrder.get(slot); }
+    public void addPlayer(Player p) {
+        p.setSlot(turnOrder.size());
+        turnOrder.add(p);
+        players.put(p.getId(), p);
+        markPlayerChanged(p.getId());
+    }
 
     // --- Zug & Timer ---
-    public String getCurrentPlayerId() { return currentPlayerId; }
-    public void setCurrentPlayerId(String currentPlayerId) { this.currentPlayerId = currentPlayerId; }
-    public int getTimeLeft() { return timeLeft; }
-    public void setTimeLeft(int timeLeft) { this.timeLeft = timeLeft; }
+    public int getCurrentSlot() { return currentSlot; }
+    public void setCurrentSlot(int slot) {
+        this.currentSlot = slot;
+        publishTurnGate();
+    }
+    public Player getCurrentPlayer() { return currentSlot == NO_PLAYER ? null : turnOrder.get(currentSlot); }
+    public String getCurrentPlayerId() { return currentSlot == NO_PLAYER ? null : turnOrder.get(currentSlot).getId(); }
+    /** Unbekannte ID oder null: niemand am Zug. */
+    public void setCurrentPlayerId(String playerId) {
+        Player p = playerId == null ? null : players.get(playerId);
+        this.currentSlot = p == null ? NO_PLAYER : p.getSlot();
+        publishTurnGate();
+    }
+    /**
+     * Nächster Slot im Ring nach dem aktuellen (ohne aktuellen: ab dem ersten), getrennte Spieler
+     * werden übersprungen; sind alle getrennt, der direkte Nachfolger. NO_PLAYER ohne Spieler.
+     */
+    public int nextSlot() {
+        int n = turnOrder.size();
+        if (n == 0) return NO_PLAYER;
+        int from = currentSlot == NO_PLAYER ? n - 1 : currentSlot;
+        for (int i = 1; i <= n; i++) {
+            int slot = (from + i) % n;
+            if (turnOrder.get(slot).isConnected()) return slot;
+        }
+        return (from + 1) % n;
+    }
+    public long getTurnDeadline() { return turnDeadline; }
+    public void setTurnDeadline(long turnDeadline) { this.turnDeadline = turnDeadline; }
+    /** Restzeit in ganzen Sekunden, abgeleitet aus der Deadline (Clients zählen selbst herunter). */
+    public int getTimeLeft() {
+        if (turnDeadline == 0) return 0;
+        long ms = turnDeadline - System.currentTimeMillis();
+        return ms <= 0 ? 0 : (int) ((ms + 999) / 1000);
+    }
 
     // --- Aufdecken-Zwischenzustand ---
-    public Integer getFirstRevealedPos() { return firstRevealedPos; }
-    public void setFirstRevealedPos(Integer p) { this.firstRevealedPos = p; }
+    public int getFirstRevealedPos() { return firstRevealedPos; }
+    public boolean hasFirstRevealed() { return firstRevealedPos != NO_CARD; }
+    public void setFirstRevealedPos(int p) { this.firstRevealedPos = p; }
+    public void clearFirstRevealedPos() { this.firstRevealedPos = NO_CARD; }
     public boolean isRevealLock() { return revealLock; }
-    public void setRevealLock(boolean revealLock) { this.revealLock = revealLock; }
+    public void setRevealLock(boolean revealLock) {
+        this.revealLock = revealLock;
+        publishTurnGate();
+    }
+
+    /** Zuletzt veröffentlichter Zugzustand; darf von jedem Thread gelesen werden (kann kurz veraltet sein). */
+    public TurnGate getTurnGate() { return turnGate; }
+
+    // nach jeder Änderung von Status, Spieler am Zug, Sperre oder Board (nur Mailbox)
+    private void publishTurnGate() {
+        Player current = getCurrentPlayer();
+        turnGate = current == null
+                ? new TurnGate(state, null, null, revealLock, pairIds.length)
+                : new TurnGate(state, current.getId(), current.getToken(), revealLock, pairIds.length);
+    }
 
     // --- Board ---
     public int getBoardSize() { return boardSize; }
     public void setBoardSize(int boardSize) { this.boardSize = boardSize; }
-    public List<Card> getBoard() { return board; }
+    public int getRound() { return round; }
+
+    public RoundStats getRoundStats() { return roundStats; }
+    public void setRoundStats(RoundStats roundStats) { this.roundStats = roundStats; }
+
+    /** Neues Board übernehmen (pairIds je Position), alle Karten verdeckt. */
+    public void initBoard(int size, int[] pairIds) {
+        this.boardSize = size;
+        this.pairIds = pairIds;
+        this.cardStates = new byte[pairIds.length];   // 0 == HIDDEN
+        this.matchedCards = 0;
+        this.firstRevealedPos = NO_CARD;
+        this.revealLock = false;
+        publishTurnGate();
+        markBoardReset();
+    }
+
+    public int getCardCount() { return pairIds.length; }
+    public boolean isValidPos(int pos) { return pos >= 0 && pos < pairIds.length; }
+    public int getPairId(int pos) { return pairIds[pos]; }
+    public CardState getCardState(int pos) { return CardState.of(cardStates[pos]); }
+
+    /** Setzt den Kartenzustand, pflegt den MATCHED-Zähler und merkt die Position fürs Delta. */
+    public void setCardState(int pos, CardState s) {
+        byte old = cardStates[pos];
+        if (old == s.code()) return;
+        if (old == CardState.MATCHED.code()) matchedCards--;
+        if (s == CardState.MATCHED) matchedCards++;
+        cardStates[pos] = s.code();
+        changedCards.set(pos);
+    }
+
+    public boolean isAllMatched() { return pairIds.length > 0 && matchedCards == pairIds.length; }
 
     // --- Emojis ---
     public Map<Integer, String> getPairSymbols() { return pairSymbols; }
+
+    // --- Änderungsverfolgung (Delta-Protokoll) ---
+    public long getVersion() { return version; }
+    /** Erhöht die Version und liefert die neue. */
+    public long nextVersion() { return ++version; }
+
+    // --- Ausgang ---
+    public long getLastBroadcastNanos() { return lastBroadcastNanos; }
+    public boolean isBroadcastPending() { return broadcastPending; }
+    public void setBroadcastPending(boolean pending) { this.broadcastPending = pending; }
+    public boolean isFlushScheduled() { return flushScheduled; }
+    public void setFlushScheduled(boolean scheduled) { this.flushScheduled = scheduled; }
+    /** Turn- oder Statuswechsel seit der letzten Nachricht? Solche Änderungen gehen sofort raus. */
+    public boolean isTurnOrStateChanged() {
+        return state != broadcastState || currentSlot != broadcastSlot;
+    }
+    /** Nach dem Versand einer Raum-Nachricht aufrufen. */
+    public void markBroadcast(long nanos) {
+        lastBroadcastNanos = nanos;
+        broadcastPending = false;
+        broadcastSlot = currentSlot;
+        broadcastState = state;
+    }
+
+    /** Nach Wiederherstellung: Version über allen bereits verschickten, damit Clients das Vollbild annehmen. */
+    public void restoreVersion(long version) { this.version = version; }
+
+    public long getJournalLsn() { return journalLsn; }
+    public void setJournalLsn(long lsn) { this.journalLsn = lsn; }
+
+    public void markPlayerChanged(String playerId) { changedPlayers.add(playerId); }
+    /** Board wurde neu erzeugt (Start/Neustart) – nächster Broadcast ist ein Vollbild. */
+    public void markBoardReset() { boardReset = true; round++; }
+
+    public BitSet getChangedCards() { return changedCards; }
+    public Set<String> getChangedPlayers() { return changedPlayers; }
+    public boolean isBoardReset() { return boardReset; }
+
+    public Snapshot getSnapshot() { return snapshot; }
+    public void setSnapshot(Snapshot snapshot) { this.snapshot = snapshot; }
+
+    /** Nach einem Broadcast aufrufen: alle Änderungen gelten als verschickt. */
+    public void clearChanges() {
+        changedCards.clear();
+        changedPlayers.clear();
+        boardReset = false;
+    }
 }
@@ -0,0 +1,60 @@
+package com.example.memorygame.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Verlauf der laufenden Runde für die Spielhistorie: Züge (Aufdecken), Dauer je Spielerzug.
+ * Nur in der Mailbox des Raums benutzt. Nach einer Wiederherstellung aus dem Journal beginnt
+ * die Aufzeichnung neu und ist als partial markiert (Zeiten vor dem Neustart fehlen).
+ */
+public final class RoundStats {
+
+    /** Wie ein Spielerzug endete. */
+    public enum TurnEnd { MISMATCH, TIMEOUT, FINISHED }
+
+    /** Ein Spielerzug: Dauer bis zum Ende, aufgedeckte Karten, gefundene Paare. */
+    public record Turn(String playerId, int durationMs, int reveals, int pairs, TurnEnd end) { }
+
+    private final long startedAt;
+    private final boolean partial;
+    private final List<Turn> turns = new ArrayList<>();
+    private int moves;
+
+    // offener Zug (turnPlayer == null: keiner)
+    private String turnPlayer;
+    private long turnStartedAt;
+    private int turnReveals, turnPairs;
+
+    public RoundStats(long startedAt, boolean partial) {
+        this.startedAt = startedAt;
+        this.partial = partial;
+    }
+
+    /** Spieler ist am Zug; ein noch offener Zug wird verworfen. */
+    public void turnStarted(String playerId, long now) {
+        turnPlayer = playerId;
+        turnStartedAt = now;
+        turnReveals = 0;
+        turnPairs = 0;
+    }
+
+    /** Gültig aufgedeckte Karte; pair = damit ein Paar gefunden. */
+    public void revealed(boolean pair) {
+        moves++;
+        turnReveals++;
+        if (pair) turnPairs++;
+    }
+
+    public void turnEnded(TurnEnd end, long now) {
+        if (turnPlayer == null) return;
+        turns.add(new Turn(turnPlayer, (int) Math.min(Integer.MAX_VALUE, now - turnStartedAt), turnReveals, turnPairs, end));
+        turnPlayer = null;
+    }
+
+    public long getStartedAt() { return startedAt; }
+    public boolean isPartial() { return partial; }
+    public int getMoves() { return moves; }
+    public List<Turn> getTurns() { return Collections.unmodifiableList(turns); }
+}
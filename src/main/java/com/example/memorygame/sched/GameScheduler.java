@@ -0,0 +1,104 @@
+package com.example.memorygame.sched;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gemeinsamer Scheduler für alle Spiel-Timer (Zugablauf, Mismatch-Zurückdrehen,
+ * Aufräumen inaktiver Räume). Timing-Wheels statt je eines
+ * ScheduledThreadPoolExecutor pro Service.
+ *
+ * Ein Rad je Spur (memorygame.scheduler.wheels, Standard: eines je Raum-Shard). Raum-Timer
+ * planen auf der Spur ihres Shards ({@link #schedule(int, Runnable, long, TimeUnit)}), sodass
+ * ein Shard mit vielen Timern die Ticks der anderen nicht verzögert; globale Timer (Sweeps,
+ * Journal) laufen auf Spur 0.
+ *
+ * Fällige Tasks laufen mit spring.threads.virtual.enabled=true je auf einem virtuellen
+ * Thread, sonst auf memorygame.scheduler.threads Plattform-Threads. Virtuell kann ein
+ * blockierender Task (Journal-Flush, Snapshot, langsamer Broadcast) die übrigen Timer
+ * nicht aufhalten.
+ */
+@Service
+public class GameScheduler {
+
+    private final ExecutorService executor;
+    private final TimingWheel[] wheels;
+
+    public GameScheduler(@Value("${memorygame.scheduler.tick-ms:10}") long tickMs,
+                         @Value("${memorygame.scheduler.wheel-size:512}") int wheelSize,
+                         @Value("${memorygame.scheduler.threads:2}") int threads,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                         @Value("${memorygame.scheduler.wheels:${memorygame.rooms.shards:0}}") int wheels) {
+        AtomicInteger n = new AtomicInteger();
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-timer-", 1).factory())
+                : Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+                    Thread t = new Thread(r, "game-timer-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.wheels = new TimingWheel[wheels > 0 ? wheels : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < this.wheels.length; i++)
+            this.wheels[i] = new TimingWheel(tickMs, TimeUnit.MILLISECONDS, wheelSize, executor, "game-timer-wheel-" + i);
+    }
+
+    public TimingWheel.Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return schedule(0, task, delay, unit);
+    }
+
+    /** Timer auf dem Rad der Spur lane (z. B. {@link com.example.memorygame.model.Room#getShard()}). */
+    public TimingWheel.Timeout schedule(int lane, Runnable task, long delay, TimeUnit unit) {
+        return wheel(lane).schedule(task, delay, unit);
+    }
+
+    public int wheelCount() { return wheels.length; }
+
+    private TimingWheel wheel(int lane) {
+        return wheels[Math.floorMod(lane, wheels.length)];
+    }
+
+    // --- Metriken (Summe bzw. Maximum über alle Räder) ---
+    public long pendingTimers() {
+        long n = 0;
+        for (TimingWheel w : wheels) n += w.pendingTimers();
+        return n;
+    }
+    public long pendingTimers(int lane) { return wheel(lane).pendingTimers(); }
+    public long firedTimers() {
+        long n = 0;
+        for (TimingWheel w : wheels) n += w.firedTimers();
+        return n;
+    }
+    public long cancelledTimers() {
+        long n = 0;
+        for (TimingWheel w : wheels) n += w.cancelledTimers();
+        return n;
+    }
+    public double maxLatenessMillis() {
+        long max = 0;
+        for (TimingWheel w : wheels) max = Math.max(max, w.maxLatenessNanos());
+        return max / 1_000_000.0;
+    }
+    public double avgLatenessMillis() {
+        double total = 0;
+        long fired = 0;
+        for (TimingWheel w : wheels) {
+            long n = w.firedTimers();
+            total += (double) w.avgLatenessNanos() * n;
+            fired += n;
+        }
+        return fired == 0 ? 0 : total / fired / 1_000_000.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (TimingWheel w : wheels) w.close();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.memorygame.sched;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gehashtes Timing-Wheel (Varghese/Lauck) für viele kurze Timer.
+ *
+ * - schedule/cancel sind O(1): neue Timer landen in einer lock-freien Queue,
+ *   der Worker-Thread hängt sie pro Tick in ihren Bucket (doppelt verkettet).
+ * - Timer, die weiter als eine Umdrehung entfernt sind, zählen "rounds" herunter.
+ * - Fällige Tasks laufen auf dem übergebenen Executor, nie auf dem Worker selbst,
+ *   damit ein langsamer Task die übrigen Timer nicht verspätet.
+ */
+public final class TimingWheel implements AutoCloseable {
+
+    /** Handle auf einen geplanten Task. */
+    public interface Timeout {
+        /** @return true, wenn der Task dadurch nicht mehr ausgeführt wird. */
+        boolean cancel();
+        boolean isCancelled();
+        boolean isExpired();
+    }
+
+    private static final int INIT = 0, CANCELLED = 1, EXPIRED = 2;
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final Thread worker;
+    private final long startNanos = System.nanoTime();
+
+    private final Queue<Entry> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> pendingCancels = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    private long tick;                       // nur vom Worker benutzt
+
+    // --- Metriken ---
+    private final AtomicLong pending = new AtomicLong();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder latenessNanosTotal = new LongAdder();
+    private volatile long maxLatenessNanos;
+
+    /**
+     * @param tick      Auflösung eines Ticks (z. B. 10 ms)
+     * @param wheelSize Anzahl Buckets, wird auf die nächste Zweierpotenz aufgerundet
+     * @param executor  führt fällige Tasks aus
+     */
+    public TimingWheel(long tick, TimeUnit unit, int wheelSize, Executor executor, String threadName) {
+        if (tick <= 0) throw new IllegalArgumentException("tick muss > 0 sein");
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) throw new IllegalArgumentException("wheelSize ungültig");
+        this.tickNanos = unit.toNanos(tick);
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (size <= 0) size = 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.executor = executor;
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) throw new IllegalStateException("TimingWheel gestoppt");
+        long deadline = System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay));
+        Entry e = new Entry(task, deadline);
+        pending.incrementAndGet();
+        pendingAdds.add(e);
+        return e;
+    }
+
+    // --- Metriken ---
+    public long pendingTimers() { return pending.get(); }
+    public long firedTimers() { return fired.sum(); }
+    public long cancelledTimers() { return cancelled.sum(); }
+    public long maxLatenessNanos() { return maxLatenessNanos; }
+    public long avgLatenessNanos() {
+        long n = fired.sum();
+        return n == 0 ? 0 : latenessNanosTotal.sum() / n;
+    }
+    public long tickNanos() { return tickNanos; }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try { worker.join(1000); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
+    }
+
+    // --- Worker ---
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleep;
+            while (running && (sleep = deadline - (System.nanoTime() - startNanos)) > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            if (!running) break;
+            processCancels();
+            transferAdds();
+            expire(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    private void processCancels() {
+        Entry e;
+        while ((e = pendingCancels.poll()) != null) {
+            if (e.bucket != null) e.bucket.remove(e);
+        }
+    }
+
+    private void transferAdds() {
+        Entry e;
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK && (e = pendingAdds.poll()) != null; i++) {
+            if (e.state.get() != INIT) continue;
+            long calculated = e.deadline / tickNanos;
+            e.rounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick);   // bereits überfällig -> aktueller Tick
+            wheel[(int) (ticks & mask)].add(e);
+        }
+    }
+
+    private void expire(Bucket bucket, long deadline) {
+        Entry e = bucket.head;
+        while (e != null) {
+            Entry next = e.next;
+            if (e.state.get() == CANCELLED) {
+                bucket.remove(e);
+            } else if (e.rounds <= 0) {
+                bucket.remove(e);
+                if (e.deadline <= deadline && e.state.compareAndSet(INIT, EXPIRED)) fire(e);
+                else if (e.state.get() == INIT) pendingAdds.add(e);   // (nur bei Uhrsprüngen) neu einsortieren
+            } else {
+                e.rounds--;
+            }
+            e = next;
+        }
+    }
+
+    private void fire(Entry e) {
+        pending.decrementAndGet();
+        fired.increment();
+        long late = Math.max(0, System.nanoTime() - startNanos - e.deadline);
+        latenessNanosTotal.add(late);
+        if (late > maxLatenessNanos) maxLatenessNanos = late;
+        try {
+            executor.execute(e.task);
+        } catch (RuntimeException ex) {
+            // Executor abgelehnt (z. B. beim Herunterfahren) – Timer verfällt
+        }
+    }
+
+    private final class Entry implements Timeout {
+        final Runnable task;
+        final long deadline;          // ns relativ zu startNanos
+        final AtomicInteger state = new AtomicInteger(INIT);
+        long rounds;
+        Entry prev, next;
+        Bucket bucket;
+
+        Entry(Runnable task, long deadline) { this.task = task; this.deadline = deadline; }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) return false;
+            pending.decrementAndGet();
+            cancelled.increment();
+            pendingCancels.add(this);
+            return true;
+        }
+
+        @Override public boolean isCancelled() { return state.get() == CANCELLED; }
+        @Override public boolean isExpired() { return state.get() == EXPIRED; }
+    }
+
+    /** Doppelt verkettete Liste, nur vom Worker-Thread verändert. */
+    private static final class Bucket {
+        Entry head, tail;
+
+        void add(Entry e) {
+            e.bucket = this;
+            e.prev = tail;
+            e.next = null;
+            if (tail == null) head = tail = e;
+            else { tail.next = e; tail = e; }
+        }
+
+        void remove(Entry e) {
+            if (e.bucket != this) return;
+            if (e.prev != null) e.prev.next = e.next; else head = e.next;
+            if (e.next != null) e.next.prev = e.prev; else tail = e.prev;
+            e.prev = e.next = null;
+            e.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.memorygame.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gemischte Boards (Paar-ID je Position) für Start und Neustart.
+ *
+ * Für die Kartenzahlen aus memorygame.boards.pooled (z. B. "4x4,6x6") liegen je bis zu
+ * memorygame.boards.pool-depth fertige Boards bereit; Start/Neustart nimmt eins aus dem
+ * Pool, ein virtueller Thread füllt nach, sobald die Hälfte verbraucht ist. Ist der Pool leer
+ * oder die Größe nicht gepoolt, wird direkt gemischt.
+ *
+ * Gemischt wird mit Fisher–Yates auf einem int[] und einem SplittableRandom; SecureRandom
+ * liefert nur den Seed (einer je Nachfüll-Lauf bzw. je direkt gemischtem Board).
+ * Das Layout (Zeilen × Spalten) spielt für die Mischung keine Rolle, gepoolt wird je Kartenzahl.
+ */
+@Service
+public class BoardFactory {
+
+    private final SecureRandom seeds = new SecureRandom();
+    private final int depth;
+    private final Map<Integer, Pool> pools = new ConcurrentHashMap<>();
+    private final ExecutorService refill = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("board-refill-", 1).factory());
+    private final LongAdder pooledTakes = new LongAdder(), directShuffles = new LongAdder();
+
+    public BoardFactory(@Value("${memorygame.boards.pooled:4x4,6x6}") String pooled,
+                        @Value("${memorygame.boards.pool-depth:64}") int depth) {
+        this.depth = depth;
+        if (depth <= 0) return;
+        for (String layout : pooled.split(",")) {
+            if (layout.isBlank()) continue;
+            String[] rc = layout.trim().toLowerCase().split("x");
+            int cards = Integer.parseInt(rc[0].trim()) * Integer.parseInt(rc[rc.length - 1].trim());
+            if (cards % 2 != 0) throw new IllegalArgumentException("Ungerade Kartenzahl in memorygame.boards.pooled: " + layout);
+            pools.putIfAbsent(cards, new Pool());
+        }
+    }
+
+    @PostConstruct
+    void fill() {
+        pools.forEach(this::scheduleRefill);
+    }
+
+    /** Neues gemischtes Board mit cards Karten (gerade); das Array gehört danach dem Aufrufer. */
+    public int[] shuffledPairs(int cards) {
+        Pool pool = pools.get(cards);
+        if (pool != null) {
+            int[] board = pool.boards.poll();
+            if (board != null) {
+                pool.size.decrementAndGet();
+                pooledTakes.increment();
+                if (pool.size.get() <= depth / 2) scheduleRefill(cards, pool);
+                return board;
+            }
+            scheduleRefill(cards, pool);
+        }
+        directShuffles.increment();
+        return shuffle(cards, new SplittableRandom(seeds.nextLong()));
+    }
+
+    /** Paar-IDs 0..cards/2-1, jede zweimal, gemischt (Fisher–Yates, in-place). */
+    static int[] shuffle(int cards, SplittableRandom rnd) {
+        int[] pairIds = new int[cards];
+        for (int i = 0; i < cards; i++) pairIds[i] = i >> 1;
+        for (int i = cards - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = pairIds[i]; pairIds[i] = pairIds[j]; pairIds[j] = t;
+        }
+        return pairIds;
+    }
+
+    private void scheduleRefill(int cards, Pool pool) {
+        if (!pool.refilling.compareAndSet(false, true)) return;
+        refill.execute(() -> {
+            try {
+                SplittableRandom rnd = new SplittableRandom(seeds.nextLong());
+                while (pool.size.get() < depth) {
+                    pool.boards.add(shuffle(cards, rnd));
+                    pool.size.incrementAndGet();
+                }
+            } finally {
+                pool.refilling.set(false);
+            }
+        });
+    }
+
+    // --- Metriken ---
+    public long pooledTakes() { return pooledTakes.sum(); }
+    public long directShuffles() { return directShuffles.sum(); }
+
+    @PreDestroy
+    void shutdown() {
+        refill.shutdownNow();
+    }
+
+    private static final class Pool {
+        final Queue<int[]> boards = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();       // ConcurrentLinkedQueue.size() ist O(n)
+        final AtomicBoolean refilling = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.memorygame.service;
+
+import com.example.memorygame.model.CardState;
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+
+/**
+ * Reine Zustandsübergänge eines Raums – ohne Broadcast, Timer oder Zufall.
+ * Der Live-Pfad ({@link GameService}, TurnTimerService) und das Wiederherstellen
+ * aus dem Journal (RoomJournal/JournalRecovery) benutzen dieselben Methoden,
+ * damit ein Replay exakt denselben Zustand ergibt. Zufall (Board, Spieler-IDs)
+ * steckt in den Argumenten und wird so mitprotokolliert.
+ *
+ * Aufrufer laufen in der Mailbox des Raums (bzw. beim Start vor dem ersten Befehl).
+ */
+public final class GameRules {
+
+    /** Ergebnis eines gültigen Klicks. */
+    public enum Reveal { IGNORED, FIRST, MATCH, FINISHED, MISMATCH }
+
+    private GameRules() {}
+
+    /** Neues Board (boardSize = Spaltenzahl), Status RUNNING, erster Spieler ist der zuerst beigetretene. */
+    public static void startRound(Room room, int boardSize, int[] pairIds, boolean resetScores) {
+        if (resetScores) {
+            for (Player p : room.getPlayersInJoinOrder()) {
+                p.setScore(0);
+                room.markPlayerChanged(p.getId());
+            }
+        }
+        room.setState(Room.State.RUNNING);
+        room.initBoard(boardSize, pairIds);
+        room.setCurrentSlot(room.getPlayerCount() == 0 ? Room.NO_PLAYER : 0);
+    }
+
+    /**
+     * Karte aufdecken. Zustand, Zug und Position hat der Aufrufer geprüft;
+     * eine schon offene Karte oder ein Klick während der Vergleichssperre ergibt IGNORED.
+     */
+    public static Reveal reveal(Room room, String playerId, int pos) {
+        if (room.isRevealLock() || room.getCardState(pos) != CardState.HIDDEN) return Reveal.IGNORED;
+
+        if (!room.hasFirstRevealed()) {
+            room.setCardState(pos, CardState.REVEALED);
+            room.setFirstRevealedPos(pos);
+            return Reveal.FIRST;
+        }
+
+        int first = room.getFirstRevealedPos();
+        room.setCardState(pos, CardState.REVEALED);
+
+        if (room.getPairId(first) != room.getPairId(pos)) {
+            room.setRevealLock(true);          // zurückgedreht wird per hideMismatch
+            return Reveal.MISMATCH;
+        }
+
+        room.setCardState(first, CardState.MATCHED);
+        room.setCardState(pos, CardState.MATCHED);
+        room.clearFirstRevealedPos();
+
+        Player cur = room.getPlayer(playerId);
+        if (cur != null) {
+            cur.setScore(cur.getScore() + 1);
+            room.markPlayerChanged(cur.getId());
+        }
+
+        // Alle gefunden?
+        if (room.isAllMatched()) {
+            room.setState(Room.State.FINISHED);
+            room.setTurnDeadline(0);
+            return Reveal.FINISHED;
+        }
+        return Reveal.MATCH;   // gleicher Spieler bleibt
+    }
+
+    /** Nicht passendes Paar wieder umdrehen und an den nächsten Spieler übergeben. */
+    public static void hideMismatch(Room room, int first, int second) {
+        room.setCardState(first, CardState.HIDDEN);
+        room.setCardState(second, CardState.HIDDEN);
+        room.clearFirstRevealedPos();
+        room.setCurrentSlot(room.nextSlot());
+        room.setRevealLock(false);
+    }
+
+    /** Zug abgelaufen: halb aufgedeckte Karte umdrehen, nächster Spieler. */
+    public static void turnTimeout(Room room) {
+        if (room.hasFirstRevealed()) {
+            room.setCardState(room.getFirstRevealedPos(), CardState.HIDDEN);
+            room.clearFirstRevealedPos();
+        }
+        int next = room.nextSlot();
+        if (next != Room.NO_PLAYER) room.setCurrentSlot(next);
+    }
+}
@@ -1,107 +1,245 @@
 package com.example.memorygame.service;
 
-import com.example.memorygame.model.Card;
+import com.example.memorygame.history.GameHistory;
+import com.example.memorygame.journal.RoomJournal;
+import com.example.memorygame.metrics.GameMetrics;
+import com.example.memorygame.model.CardState;
 import com.example.memorygame.model.Player;
 import com.example.memorygame.model.Room;
+import com.example.memorygame.model.RoundStats;
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.tournament.TournamentService;
 import com.example.memorygame.ws.GameWsService;
 import com.example.memorygame.ws.TurnTimerService;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Spielablauf. Alle Befehle werden in die Mailbox des Raums eingereiht
+ * (siehe {@link RoomService#submit}) und liefern ein Future zurück – der
+ * aufrufende Request-Thread blockiert nicht, und pro Raum gibt es genau einen Schreiber.
+ */
 @Service
 public class GameService {
 
     private final RoomService rooms;
     private final GameWsService ws;
     private final TurnTimerService timer;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final GameScheduler scheduler;
+    private final RoomLifecycle lifecycle;
+    private final GameMetrics metrics;
+    private final RoomJournal journal;
+    private final TournamentService tournaments;
+    private final GameHistory history;
+    private final MoveGate moves;
+
+    public GameService(RoomService rooms, GameWsService ws, TurnTimerService timer, GameScheduler scheduler,
+                       RoomLifecycle lifecycle, GameMetrics metrics, RoomJournal journal, TournamentService tournaments,
+                       GameHistory history, MoveGate moves) {
+        this.rooms = rooms; this.ws = ws; this.timer = timer; this.scheduler = scheduler;
+        this.lifecycle = lifecycle; this.metrics = metrics; this.journal = journal; this.tournaments = tournaments;
+        this.history = history; this.moves = moves;
+    }
 
-    public GameService(RoomService rooms, GameWsService ws, TurnTimerService timer) {
-        this.rooms = rooms; this.ws = ws; this.timer = timer;
+    public Room createRoom() {
+        Room room = lifecycle.createRoom();
+        // erster Eintrag der Mailbox -> CREATED steht im Journal vor jedem weiteren Befehl
+        room.getMailbox().execute(() -> {
+            journal.created(room);
+            ws.broadcastRoomState(room);
+        });
+        return room;
     }
 
-    public void revealCard(String pin, String playerId, int pos) {
-        Room room = rooms.findByPin(pin).orElseThrow(() -> new IllegalArgumentException("Raum nicht gefunden"));
-        synchronized (room) {
-            if (room.getState() != Room.State.RUNNING) throw new IllegalStateException("Spiel nicht gestartet");
-            if (!playerId.equals(room.getCurrentPlayerId())) throw new IllegalStateException("Nicht dein Zug");
-            if (room.isRevealLock()) return;
+    public CompletableFuture<Player> join(String pin, String name) {
+        return rooms.submit(pin, "join", room -> {
+            Player p = rooms.addPlayer(room, name);
+            journal.joined(room, p);
+            tournaments.playerChanged(room, p);
+            ws.broadcastRoomState(room);
+            return p;
+        });
+    }
 
-            Card card = cardAt(room, pos);
-            if (card == null) throw new IllegalArgumentException("Ungültige Position");
-            if (card.getState() != Card.CardState.HIDDEN) return;
+    /** STOMP-Session an den Spieler gebunden (Beitritt oder Reconnect); nur mit dessen Token. */
+    public CompletableFuture<Player> connect(String pin, String playerId, String token) {
+        return rooms.submit(pin, "connect", room -> {
+            Player p = room.getPlayer(playerId);
+            if (p == null) throw new IllegalArgumentException("Spieler nicht gefunden");
+            if (!p.hasToken(token)) throw new IllegalStateException(MoveResult.FORBIDDEN.message);
+            if (p.sessionOpened()) presenceChanged(room, p);
+            return p;
+        });
+    }
 
-            if (room.getFirstRevealedPos() == null) {
-                card.setState(Card.CardState.REVEALED);
-                room.setFirstRevealedPos(pos);
-                ws.broadcastRoomState(room);
-                return;
-            }
+    /** Gebundene STOMP-Session des Spielers ist weg. */
+    public CompletableFuture<Void> disconnect(String pin, String playerId) {
+        return rooms.submit(pin, "disconnect", room -> {
+            Player p = room.getPlayer(playerId);
+            if (p != null && p.sessionClosed()) presenceChanged(room, p);
+            return null;
+        });
+    }
+
+    /** Nach einem Neustart hat niemand eine Session: alle gelten als getrennt, bis sie sich neu binden. Mailbox. */
+    public void sessionsLost(Room room) {
+        for (Player p : room.getPlayersInJoinOrder()) {
+            if (!p.isConnected() || p.getSessions() > 0) continue;
+            p.setConnected(false);
+            presenceChanged(room, p);
+        }
+    }
 
-            if (room.getFirstRevealedPos() == pos) return;
-
-            Card first = cardAt(room, room.getFirstRevealedPos());
-            card.setState(Card.CardState.REVEALED);
-
-            boolean match = first.getPairId() == card.getPairId();
-
-            if (match) {
-                first.setState(Card.CardState.MATCHED);
-                card.setState(Card.CardState.MATCHED);
-                room.setFirstRevealedPos(null);
-
-                Player cur = room.getPlayersInJoinOrder().stream()
-                        .filter(p -> p.getId().equals(playerId)).findFirst().orElse(null);
-                if (cur != null) cur.setScore(cur.getScore() + 1);
-
-                // Alle gefunden?
-                if (allMatched(room)) {
-                    room.setState(Room.State.FINISHED);
-                    room.setTimeLeft(0);
-                    ws.broadcastRoomState(room);
-                    timer.stopCountdown(pin);
-                    return;
-                }
-
-                // Gleicher Spieler bleibt, Timer reset
-                room.setTimeLeft(20);
-                ws.broadcastRoomState(room);
-            } else {
-                room.setRevealLock(true);
-                ws.broadcastRoomState(room);
-
-                scheduler.schedule(() -> {
-                    synchronized (room) {
-                        first.setState(Card.CardState.HIDDEN);
-                        card.setState(Card.CardState.HIDDEN);
-                        room.setFirstRevealedPos(null);
-
-                        // Nächster Spieler + Timer reset
-                        String next = nextPlayerId(room);
-                        room.setCurrentPlayerId(next);
-                        room.setTimeLeft(20);
-                        room.setRevealLock(false);
-                        ws.broadcastRoomState(room);
-                    }
-                }, 900, TimeUnit.MILLISECONDS);
+    // Spieler am Zug getrennt -> Zug auf die Schonfrist kürzen; wieder da -> voller Zug
+    private void presenceChanged(Room room, Player p) {
+        room.markPlayerChanged(p.getId());
+        journal.presence(room, p);
+        if (room.getState() == Room.State.RUNNING && p == room.getCurrentPlayer() && !room.isRevealLock()) {
+            timer.startCountdown(room);
+        }
+        ws.broadcastRoomState(room);
+    }
+
+    public CompletableFuture<Room> startGame(String pin, int boardSize) {
+        return startGame(pin, boardSize, boardSize);
+    }
+
+    public CompletableFuture<Room> startGame(String pin, int rows, int cols) {
+        return rooms.submit(pin, "start", room -> {
+            rooms.startGame(room, rows, cols);
+            beginRoundStats(room, false);
+            journal.roundStarted(room, false);
+            metrics.roomStarted(room.getPlayers().size());
+            timer.startCountdown(room);
+            ws.broadcastRoomState(room);
+            return room;
+        });
+    }
+
+    public CompletableFuture<Room> restartRound(String pin, boolean resetScores) {
+        return rooms.submit(pin, "restart", room -> {
+            rooms.restartRound(room, resetScores);
+            beginRoundStats(room, false);
+            journal.roundStarted(room, resetScores);
+            if (resetScores) tournaments.roundStarted(room);
+            timer.startCountdown(room);
+            ws.broadcastRoomState(room);
+            return room;
+        });
+    }
+
+    public CompletableFuture<Void> stopCountdown(String pin) {
+        return rooms.submit(pin, "stop", room -> {
+            timer.stopCountdown(pin);
+            return null;
+        });
+    }
+
+    /**
+     * Klick über REST: nur mit dem Token des Spielers. Vorprüfung und Token kommen vor dem
+     * Rate-Limit – einen Bucket bekommt nur der Spieler am Zug, nicht jede beliebige playerId.
+     */
+    public CompletableFuture<MoveResult> revealCard(String pin, String playerId, String token, int pos) {
+        Room room = rooms.findByPin(pin).orElse(null);
+        if (room != null) {
+            Room.TurnGate gate = room.getTurnGate();
+            MoveResult early = MoveGate.precheck(gate, playerId, pos);
+            if (early == MoveResult.OK && !gate.tokenMatches(token)) early = MoveResult.FORBIDDEN;
+            if (early == MoveResult.OK && !moves.bucketFor(playerId).tryTake()) early = MoveResult.RATE_LIMITED;
+            if (early != MoveResult.OK) return rejected(early);
+        }
+        return submitReveal(pin, playerId, token, pos);
+    }
+
+    /**
+     * Klick einer gebundenen STOMP-Session (Token schon beim join geprüft). Rate-Limit und Vorprüfung
+     * ({@link MoveGate}) laufen auf dem aufrufenden Thread; nur Klicks, die dort bestehen, gehen in die
+     * Mailbox. Unbekannte PIN → wie {@link RoomService#submit}.
+     */
+    public CompletableFuture<MoveResult> revealCard(String pin, String playerId, int pos, MoveGate.TokenBucket bucket) {
+        MoveResult early = MoveResult.RATE_LIMITED;
+        if (bucket.tryTake()) {
+            Room room = rooms.findByPin(pin).orElse(null);
+            early = room == null ? MoveResult.OK : MoveGate.precheck(room.getTurnGate(), playerId, pos);
+        }
+        if (early != MoveResult.OK) return rejected(early);
+        return submitReveal(pin, playerId, null, pos);
+    }
+
+    private CompletableFuture<MoveResult> rejected(MoveResult r) {
+        metrics.revealRejected(r.reason);
+        return r.future();
+    }
+
+    // token == null: Session-gebunden, sonst REST-Token des Spielers
+    private CompletableFuture<MoveResult> submitReveal(String pin, String playerId, String token, int pos) {
+        return rooms.submit(pin, "reveal", room -> {
+            MoveResult r = reveal(room, playerId, token, pos);
+            if (r != MoveResult.OK) metrics.revealRejected(r.reason);
+            return r;
+        });
+    }
+
+    // verbindliche Prüfung in der Mailbox (die Vorprüfung kann veraltet sein)
+    private MoveResult reveal(Room room, String playerId, String token, int pos) {
+        if (room.getState() != Room.State.RUNNING) return MoveResult.NOT_RUNNING;
+        if (!playerId.equals(room.getCurrentPlayerId())) return MoveResult.NOT_YOUR_TURN;
+        if (token != null && !room.getCurrentPlayer().hasToken(token)) return MoveResult.FORBIDDEN;
+        if (room.isRevealLock()) return MoveResult.LOCKED;          // Klick während Vergleichssperre
+        if (!room.isValidPos(pos)) return MoveResult.INVALID_POS;
+        if (room.getCardState(pos) != CardState.HIDDEN) return MoveResult.NOT_HIDDEN;
+
+        int first = room.getFirstRevealedPos();
+        GameRules.Reveal result = GameRules.reveal(room, playerId, pos);
+        if (result == GameRules.Reveal.IGNORED) return MoveResult.NOT_HIDDEN;
+        journal.revealed(room, playerId, pos);
+        boolean pair = result == GameRules.Reveal.MATCH || result == GameRules.Reveal.FINISHED;
+        if (pair) tournaments.playerChanged(room, room.getPlayer(playerId));   // Punkt für das Paar
+
+        RoundStats stats = room.getRoundStats();
+        long now = System.currentTimeMillis();
+        stats.revealed(pair);
+        if (result == GameRules.Reveal.MISMATCH) stats.turnEnded(RoundStats.TurnEnd.MISMATCH, now);
+
+        switch (result) {
+            case FINISHED -> {
+                stats.turnEnded(RoundStats.TurnEnd.FINISHED, now);
+                timer.stopCountdown(room.getPin());
+                history.finished(room);
             }
+            case MATCH -> timer.startCountdown(room);           // gleicher Spieler bleibt, Timer reset
+            case MISMATCH -> scheduleHide(room, first, pos);
+            default -> { }
         }
+        ws.broadcastRoomState(room);
+        return MoveResult.OK;
     }
 
-    private Card cardAt(Room room, int pos) {
-        return room.getBoard().stream().filter(c -> c.getPosition() == pos).findFirst().orElse(null);
+    /** Aufzeichnung für die Historie neu beginnen; partial nach Wiederherstellung aus dem Journal. Mailbox. */
+    public void beginRoundStats(Room room, boolean partial) {
+        long now = System.currentTimeMillis();
+        RoundStats stats = new RoundStats(now, partial);
+        stats.turnStarted(room.getCurrentPlayerId(), now);
+        room.setRoundStats(stats);
     }
-    private boolean allMatched(Room room) {
-        return room.getBoard().stream().allMatch(c -> c.getState() == Card.CardState.MATCHED);
+
+    // Nach 900 ms zurückdrehen – wieder über die Mailbox, nur wenn noch dieselbe Runde läuft
+    private void scheduleHide(Room room, int first, int second) {
+        int round = room.getRound();
+        scheduler.schedule(room.getShard(), () -> room.getMailbox().execute(() -> {
+            if (room.getRound() != round || !room.isRevealLock()) return;
+            hideMismatch(room, first, second);
+        }), 900, TimeUnit.MILLISECONDS);
     }
-    private String nextPlayerId(Room room) {
-        List<Player> order = room.getPlayersInJoinOrder();
-        if (order.isEmpty()) return null;
-        String cur = room.getCurrentPlayerId();
-        int idx = 0;
-        for (int i = 0; i < order.size(); i++) if (order.get(i).getId().equals(cur)) { idx = i; break; }
-        return order.get((idx + 1) % order.size()).getId();
+
+    /** Vergleich beenden: Karten zurück, nächster Spieler, Timer reset. Läuft in der Mailbox des Raums. */
+    public void hideMismatch(Room room, int first, int second) {
+        GameRules.hideMismatch(room, first, second);
+        room.getRoundStats().turnStarted(room.getCurrentPlayerId(), System.currentTimeMillis());
+        journal.mismatchHidden(room, first, second);
+        timer.startCountdown(room);
+        ws.broadcastRoomState(room);
     }
 }
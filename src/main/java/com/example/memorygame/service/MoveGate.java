@@ -0,0 +1,108 @@
+package com.example.memorygame.service;
+
+import com.example.memorygame.model.Room;
+import com.example.memorygame.sched.GameScheduler;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vorprüfung von Klicks, bevor sie in die Mailbox des Raums gehen.
+ *
+ * - Token-Bucket je STOMP-Session bzw. (REST) je Spieler: memorygame.moves.rate Klicks pro
+ *   Sekunde, Spitzen bis memorygame.moves.burst; rate 0 = unbegrenzt. REST-Buckets entstehen erst
+ *   nach bestandener Vorprüfung mit gültigem Spieler-Token, also nur für echte Spieler am Zug.
+ * - Zug, Status, Sperre und Position werden gegen {@link Room#getTurnGate()} geprüft
+ *   (volatiler, unveränderlicher Auszug, ohne Mailbox).
+ *
+ * Abgelehnt wird mit einem {@link MoveResult}, ohne Exception und ohne Umweg über die Mailbox. Die Prüfung
+ * kann veraltet sein; verbindlich bleibt die Prüfung in der Mailbox.
+ */
+@Service
+public class MoveGate {
+
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final GameScheduler scheduler;
+
+    /** REST-Klicks je playerId; Einträge ohne Klick seit IDLE_NANOS werden entfernt. */
+    private final Map<String, TokenBucket> byPlayer = new ConcurrentHashMap<>();
+
+    public MoveGate(@Value("${memorygame.moves.rate:10}") double ratePerSecond,
+                    @Value("${memorygame.moves.burst:20}") int burst,
+                    GameScheduler scheduler) {
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.burst = Math.max(1, burst);
+        this.scheduler = scheduler;
+    }
+
+    @PostConstruct
+    void start() {
+        if (tokensPerNano > 0) scheduler.schedule(this::sweepAndReschedule, 1, TimeUnit.MINUTES);
+    }
+
+    /** Neuer Bucket, z. B. für eine STOMP-Session (lebt in deren Attributen). */
+    public TokenBucket newBucket() {
+        return tokensPerNano > 0 ? new TokenBucket(this) : TokenBucket.UNLIMITED;
+    }
+
+    /** Bucket für REST-Klicks eines Spielers; nur für geprüfte Spieler aufrufen (siehe oben). */
+    public TokenBucket bucketFor(String playerId) {
+        return tokensPerNano > 0 ? byPlayer.computeIfAbsent(playerId, id -> new TokenBucket(this)) : TokenBucket.UNLIMITED;
+    }
+
+    /** Klick gegen den veröffentlichten Zugzustand prüfen. */
+    public static MoveResult precheck(Room.TurnGate gate, String playerId, int pos) {
+        if (gate.state() != Room.State.RUNNING) return MoveResult.NOT_RUNNING;
+        if (!playerId.equals(gate.playerId())) return MoveResult.NOT_YOUR_TURN;
+        if (gate.locked()) return MoveResult.LOCKED;
+        if (pos < 0 || pos >= gate.cardCount()) return MoveResult.INVALID_POS;
+        return MoveResult.OK;
+    }
+
+    private void sweepAndReschedule() {
+        try {
+            long now = System.nanoTime();
+            byPlayer.values().removeIf(b -> b.idleSince(now) > IDLE_NANOS);
+        } finally {
+            scheduler.schedule(this::sweepAndReschedule, 1, TimeUnit.MINUTES);
+        }
+    }
+
+    /** Token-Bucket; tryTake ist synchronisiert (je Session/Spieler praktisch unbestritten). */
+    public static final class TokenBucket {
+
+        static final TokenBucket UNLIMITED = new TokenBucket(null);
+
+        private final MoveGate gate;
+        private double tokens;
+        private long last = System.nanoTime();
+
+        private TokenBucket(MoveGate gate) {
+            this.gate = gate;
+            this.tokens = gate == null ? 0 : gate.burst;
+        }
+
+        public boolean tryTake() {
+            return gate == null || take(System.nanoTime());
+        }
+
+        private synchronized boolean take(long now) {
+            tokens = Math.min(gate.burst, tokens + (now - last) * gate.tokensPerNano);
+            last = now;
+            if (tokens < 1) return false;
+            tokens -= 1;
+            return true;
+        }
+
+        private synchronized long idleSince(long now) {
+            return now - last;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.memorygame.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ergebnis eines Klicks (Karte aufdecken) – statt Exceptions für abgelehnte Züge.
+ * Stille Ergebnisse (ohne message) sind Doppelklicks bzw. Klicks während der Vergleichssperre.
+ */
+public enum MoveResult {
+    OK(null, null),
+    RATE_LIMITED("rate_limited", "Zu viele Klicks"),
+    NOT_RUNNING("not_running", "Spiel nicht gestartet"),
+    NOT_YOUR_TURN("not_your_turn", "Nicht dein Zug"),
+    FORBIDDEN("forbidden", "Ungültiges Spieler-Token"),
+    LOCKED("locked", null),
+    INVALID_POS("invalid_pos", "Ungültige Position"),
+    NOT_HIDDEN("not_hidden", null);
+
+    /** Tag für memorygame.reveal.rejected. */
+    public final String reason;
+    /** Meldung für den Client, null = still verwerfen. */
+    public final String message;
+
+    MoveResult(String reason, String message) {
+        this.reason = reason;
+        this.message = message;
+    }
+
+    // je Aufruf ein eigenes Future: ein geteiltes könnte jeder Empfänger per complete/obtrude verfälschen
+    CompletableFuture<MoveResult> future() { return CompletableFuture.completedFuture(this); }
+}
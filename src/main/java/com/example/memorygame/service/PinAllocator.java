@@ -0,0 +1,230 @@
+package com.example.memorygame.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Vergibt numerische PINs in O(1) statt per Zufallsziehung mit Wiederholung.
+ *
+ * - Pro Stellenzahl (z. B. 4–6) eine Stufe mit Bitset der belegten PINs.
+ * - Neue PINs kommen aus einer geheimen Permutation des PIN-Raums (Feistel-Netz mit
+ *   Cycle-Walking): fortlaufender Zähler rein, nicht erratbare PIN raus, nie doppelt.
+ * - Freigegebene PINs gehen erst nach einer Sperrzeit in eine Freiliste zurück.
+ * - Ist eine Stufe zu mehr als widenAt belegt, werden neue PINs eine Stelle länger –
+ *   so bleibt die Trefferquote beim Raten gering. Sinkt die Belegung auf die Hälfte
+ *   dieser Schwelle, geht es wieder zurück auf die kürzere Stufe.
+ *
+ * Nicht threadsicher; der Aufrufer synchronisiert (RoomService unter Lock).
+ */
+final class PinAllocator {
+
+    private final Tier[] tiers;
+    private final double widenAt;
+    private final long cooldownMs;
+    private final Predicate<String> accept;   // z. B. "PIN gehört diesem Knoten"
+    private final Random rnd;
+    private int active;                       // Index der Stufe für neue PINs
+
+    /**
+     * @param share  Anteil des PIN-Raums, den dieser Knoten nutzen kann (1/Anzahl Knoten)
+     * @param accept nur PINs, für die das true liefert, werden vergeben
+     */
+    PinAllocator(int minDigits, int maxDigits, double widenAt, double share, long cooldownMs,
+                 Predicate<String> accept, Random rnd) {
+        if (minDigits < 1 || maxDigits > 9 || minDigits > maxDigits) throw new IllegalArgumentException("Stellenzahl ungültig");
+        this.widenAt = widenAt;
+        this.cooldownMs = cooldownMs;
+        this.accept = accept;
+        this.rnd = rnd;
+        this.tiers = new Tier[maxDigits - minDigits + 1];
+        for (int i = 0; i < tiers.length; i++) tiers[i] = new Tier(minDigits + i, share, rnd);
+    }
+
+    /** Nächste freie PIN; IllegalStateException, wenn alle Stufen erschöpft sind. */
+    String allocate(long now) {
+        adjustActive();
+        for (int i = active; i < tiers.length; i++) {
+            String pin = tiers[i].allocate(now);
+            if (pin != null) return pin;
+        }
+        // längste Stufe voll: Rest der kürzeren aufbrauchen, bevor es gar nicht mehr geht
+        for (int i = active - 1; i >= 0; i--) {
+            String pin = tiers[i].allocate(now);
+            if (pin != null) return pin;
+        }
+        throw new IllegalStateException("Keine freie PIN");
+    }
+
+    /** Bestimmte PIN als belegt markieren (Wiederherstellung). @return false, wenn belegt oder außerhalb der Stufen */
+    boolean claim(String pin) {
+        Tier t = tierOf(pin);
+        return t != null && t.claim(pin);
+    }
+
+    /** PIN zurückgeben; vergeben wird sie erst nach der Sperrzeit wieder. */
+    void release(String pin, long now) {
+        Tier t = tierOf(pin);
+        if (t != null) t.release(pin, now + cooldownMs);
+    }
+
+    /** Aktuelle Stellenzahl neuer PINs. */
+    int activeDigits() {
+        adjustActive();
+        return tiers[active].digits;
+    }
+
+    int inUse() {
+        int n = 0;
+        for (Tier t : tiers) n += t.inUse;
+        return n;
+    }
+
+    private void adjustActive() {
+        while (active < tiers.length - 1 && tiers[active].load() > widenAt) active++;
+        while (active > 0 && tiers[active - 1].load() <= widenAt / 2) active--;
+    }
+
+    private Tier tierOf(String pin) {
+        int i = pin.length() - tiers[0].digits;
+        return (i >= 0 && i < tiers.length) ? tiers[i] : null;
+    }
+
+    // --- Stufe: alle PINs einer Länge ---
+
+    private final class Tier {
+        final int digits;
+        final int size;                       // 10^digits
+        final double capacity;                // nutzbarer Anteil für diesen Knoten
+        final BitSet used;
+        final BitSet reserved;                // freigegeben: in der Sperrzeit oder auf der Freiliste
+        final Feistel perm;
+        int next;                             // Zähler für frische PINs aus der Permutation
+        int inUse;
+        int[] free = new int[16];             // freigegebene PINs nach Ablauf der Sperrzeit
+        int freeCount;
+        final ArrayDeque<long[]> cooling = new ArrayDeque<>();   // {pin, frei ab}, zeitlich sortiert
+
+        Tier(int digits, double share, Random rnd) {
+            this.digits = digits;
+            int s = 1;
+            for (int i = 0; i < digits; i++) s *= 10;
+            this.size = s;
+            this.capacity = Math.max(1, s * share);
+            this.used = new BitSet(s);
+            this.reserved = new BitSet(s);
+            this.perm = new Feistel(s, rnd);
+        }
+
+        double load() { return inUse / capacity; }
+
+        String allocate(long now) {
+            while (!cooling.isEmpty() && cooling.peekFirst()[1] <= now) pushFree((int) cooling.pollFirst()[0]);
+
+            // Freiliste: zufälliges Element per Swap-Remove, O(1); inzwischen per claim belegte PINs fallen heraus
+            while (freeCount > 0) {
+                int i = rnd.nextInt(freeCount);
+                int pin = free[i];
+                free[i] = free[--freeCount];
+                if (used.get(pin)) continue;
+                reserved.clear(pin);
+                return take(pin);
+            }
+            // frische PIN: nächster Wert der Permutation; fremde PINs (anderer Knoten) sowie
+            // per claim belegte oder schon freigegebene (Sperrzeit/Freiliste) überspringen
+            while (next < size) {
+                int pin = perm.apply(next++);
+                String s = format(pin);
+                if (!used.get(pin) && !reserved.get(pin) && accept.test(s)) { markUsed(pin); return s; }
+            }
+            return null;
+        }
+
+        boolean claim(String pin) {
+            int p;
+            try { p = Integer.parseInt(pin); } catch (NumberFormatException e) { return false; }
+            if (p < 0 || p >= size || used.get(p)) return false;
+            if (reserved.get(p)) unreserve(p);   // selten (Wiederherstellung), daher linear
+            markUsed(p);
+            return true;
+        }
+
+        private void unreserve(int pin) {
+            reserved.clear(pin);
+            cooling.removeIf(c -> c[0] == pin);
+            for (int i = 0; i < freeCount; i++) {
+                if (free[i] == pin) { free[i] = free[--freeCount]; break; }
+            }
+        }
+
+        void release(String pin, long freeAt) {
+            int p;
+            try { p = Integer.parseInt(pin); } catch (NumberFormatException e) { return; }
+            if (p < 0 || p >= size || !used.get(p)) return;
+            used.clear(p);
+            reserved.set(p);
+            inUse--;
+            cooling.addLast(new long[]{p, freeAt});
+        }
+
+        private String take(int pin) {
+            markUsed(pin);
+            return format(pin);
+        }
+
+        private void markUsed(int pin) {
+            used.set(pin);
+            inUse++;
+        }
+
+        private void pushFree(int pin) {
+            if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+            free[freeCount++] = pin;
+        }
+
+        private String format(int pin) {
+            String s = Integer.toString(pin);
+            return s.length() >= digits ? s : "0".repeat(digits - s.length()) + s;
+        }
+    }
+
+    /**
+     * Bijektion auf [0, n): balanciertes Feistel-Netz über 2^(2·half) ≥ n,
+     * Werte außerhalb von n werden erneut permutiert (Cycle-Walking).
+     */
+    static final class Feistel {
+        private static final int ROUNDS = 4;
+        private final int n, half, mask;
+        private final int[] keys = new int[ROUNDS];
+
+        Feistel(int n, Random rnd) {
+            this.n = n;
+            int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, n - 1));
+            this.half = (bits + 1) / 2;
+            this.mask = (1 << half) - 1;
+            for (int i = 0; i < ROUNDS; i++) keys[i] = rnd.nextInt();
+        }
+
+        int apply(int x) {
+            do { x = round(x); } while (x >= n);
+            return x;
+        }
+
+        private int round(int x) {
+            int l = x >>> half, r = x & mask;
+            for (int k : keys) {
+                int t = l ^ (f(r, k) & mask);
+                l = r;
+                r = t;
+            }
+            return (l << half) | r;
+        }
+
+        private static int f(int r, int k) {
+            int h = (r ^ k) * 0x9E3779B1;
+            return h ^ (h >>> 15);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.memorygame.service;
+
+import com.example.memorygame.journal.RoomJournal;
+import com.example.memorygame.model.Room;
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.tournament.TournamentService;
+import com.example.memorygame.ws.GameWsService;
+import com.example.memorygame.ws.TurnTimerService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lebenszyklus der Räume: entfernt inaktive Räume und begrenzt ihre Anzahl.
+ *
+ * - LOBBY:    kein Befehl seit lobby-ttl
+ * - RUNNING:  niemand mehr verbunden und kein Befehl seit running-idle-ttl (Timer würden sonst ewig weiterdrehen)
+ * - FINISHED: nach finished-ttl
+ *
+ * Ist die Obergrenze erreicht, räumt {@link #createRoom()} vorher einen Raum frei:
+ * zuerst den am längsten beendeten, dann den am längsten inaktiven ohne Verbindungen.
+ * Das Schließen selbst läuft in der Mailbox des Raums (Timer stoppen, ROOM_CLOSED senden).
+ */
+@Service
+public class RoomLifecycle {
+
+    private final RoomService rooms;
+    private final TurnTimerService timer;
+    private final GameWsService ws;
+    private final GameScheduler scheduler;
+    private final RoomJournal journal;
+    private final TournamentService tournaments;
+
+    private final long lobbyTtlMs, runningIdleTtlMs, finishedTtlMs, sweepMs;
+
+    private final LongAdder evicted = new LongAdder();
+
+    public RoomLifecycle(RoomService rooms, TurnTimerService timer, GameWsService ws, GameScheduler scheduler,
+                         RoomJournal journal, TournamentService tournaments,
+                         @Value("${memorygame.rooms.lobby-ttl:30m}") Duration lobbyTtl,
+                         @Value("${memorygame.rooms.running-idle-ttl:5m}") Duration runningIdleTtl,
+                         @Value("${memorygame.rooms.finished-ttl:10m}") Duration finishedTtl,
+                         @Value("${memorygame.rooms.sweep-interval:30s}") Duration sweepInterval) {
+        this.rooms = rooms; this.timer = timer; this.ws = ws; this.scheduler = scheduler; this.journal = journal;
+        this.tournaments = tournaments;
+        this.lobbyTtlMs = lobbyTtl.toMillis();
+        this.runningIdleTtlMs = runningIdleTtl.toMillis();
+        this.finishedTtlMs = finishedTtl.toMillis();
+        this.sweepMs = sweepInterval.toMillis();
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.schedule(this::sweepAndReschedule, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Neuen Raum anlegen; bei voller Verwaltung vorher einen Raum verdrängen. */
+    public Room createRoom() {
+        if (rooms.roomCount() >= rooms.getMaxRooms()) evictForCapacity();
+        return rooms.createRoom();
+    }
+
+    /** Entfernt alle abgelaufenen Räume. @return Anzahl entfernter Räume */
+    public int sweep() {
+        long now = System.currentTimeMillis();
+        int n = 0;
+        for (Room room : rooms.allRooms()) {
+            if (isExpired(room, now) && evict(room, "idle")) n++;
+        }
+        return n;
+    }
+
+    public long evictedRooms() { return evicted.sum(); }
+
+    // --- intern ---
+
+    private void sweepAndReschedule() {
+        try {
+            sweep();
+        } finally {
+            scheduler.schedule(this::sweepAndReschedule, sweepMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean isExpired(Room room, long now) {
+        return switch (room.getState()) {
+            case LOBBY -> now - room.getLastActivity() > lobbyTtlMs;
+            case RUNNING -> now - Math.max(room.getLastConnected(), room.getLastActivity()) > runningIdleTtlMs;
+            case FINISHED -> now - room.getStateSince() > finishedTtlMs;
+            case CLOSED -> true;
+        };
+    }
+
+    private void evictForCapacity() {
+        Room victim = rooms.allRooms().stream()
+                .filter(r -> r.getState() == Room.State.FINISHED)
+                .min(Comparator.comparingLong(Room::getStateSince))
+                .orElseGet(() -> rooms.allRooms().stream()
+                        .filter(r -> r.getConnections() == 0)
+                        .min(Comparator.comparingLong(Room::getLastActivity))
+                        .orElse(null));
+        if (victim != null) evict(victim, "capacity");
+    }
+
+    private boolean evict(Room room, String reason) {
+        if (!rooms.remove(room)) return false;
+        evicted.increment();
+        room.getMailbox().execute(() -> {
+            room.close();
+            journal.removed(room);
+            tournaments.roomClosed(room);
+            timer.stopCountdown(room.getPin());
+            ws.broadcastClosed(room, reason);
+        });
+        return true;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.memorygame.service;
+
+import com.example.memorygame.metrics.GameMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serieller Executor pro Raum (Single-Writer): Befehle laufen strikt nacheinander,
+ * aber ohne Monitor und ohne dass der einreichende Thread wartet. Abgearbeitet wird
+ * auf dem Executor seines Shards; ein Raum belegt höchstens einen Thread gleichzeitig.
+ * Broadcasts des Raums gehen über {@link #dispatch} an den Broadcast-Thread desselben Shards,
+ * in Einreichungsreihenfolge.
+ *
+ * Wirft ein Befehl, läuft die Mailbox weiter; der Fehler wird mit PIN und Task geloggt und als
+ * memorygame.mailbox.failed gezählt (Befehle über RoomService.submit melden ihn zusätzlich im Future).
+ */
+public final class RoomMailbox implements Executor {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomMailbox.class);
+
+    /** Nach so vielen Befehlen gibt die Mailbox den Thread frei, damit andere Räume drankommen. */
+    private static final int BATCH = 64;
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // volatile: ein Umzug in einen anderen Shard tauscht beide, während Befehle eingereicht werden
+    private volatile Executor backing;
+    private volatile Executor outbound;
+    private final AtomicInteger dispatching = new AtomicInteger();   // eingereichte, noch nicht verschickte Broadcasts
+    private volatile LongAdder contended;   // Befehle, die hinter einem laufenden warten mussten (je Shard geteilt)
+    private final String pin;
+    private final GameMetrics metrics;
+
+    public RoomMailbox(Executor backing, Executor outbound, LongAdder contended, String pin, GameMetrics metrics) {
+        this.backing = backing;
+        this.outbound = outbound;
+        this.contended = contended;
+        this.pin = pin;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        queue.add(command);
+        if (!trySchedule()) contended.increment();
+    }
+
+    /**
+     * Broadcast auf dem Broadcast-Thread des Shards verschicken (Aufruf aus der Mailbox);
+     * Fehler werden wie bei Befehlen geloggt und gezählt.
+     */
+    public void dispatch(Runnable send) {
+        dispatching.incrementAndGet();
+        outbound.execute(() -> {
+            try {
+                send.run();
+            } catch (RuntimeException e) {
+                metrics.mailboxTaskFailed();
+                log.error("Raum {}: Broadcast fehlgeschlagen", pin, e);
+            } finally {
+                dispatching.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Künftige Durchläufe auf anderen Executoren abarbeiten (Umzug in einen anderen Shard).
+     * Ein laufender Durchlauf endet noch auf dem alten; seriell bleibt es über das scheduled-Flag.
+     * Nur für ruhende Mailboxen ({@link #isIdle()}), sonst könnten Broadcasts sich überholen.
+     */
+    void moveTo(Executor backing, Executor outbound, LongAdder contended) {
+        this.contended = contended;
+        this.outbound = outbound;
+        this.backing = backing;
+    }
+
+    /** Keine Befehle offen und alle Broadcasts verschickt. */
+    public boolean isIdle() {
+        return !scheduled.get() && queue.isEmpty() && dispatching.get() == 0;
+    }
+
+    private boolean trySchedule() {
+        if (!scheduled.compareAndSet(false, true)) return false;
+        backing.execute(this::drain);
+        return true;
+    }
+
+    private void drain() {
+        try {
+            Runnable r;
+            for (int i = 0; i < BATCH && (r = queue.poll()) != null; i++) {
+                try {
+                    r.run();
+                } catch (RuntimeException e) {
+                    // Fehler eines Befehls darf die Mailbox nicht blockieren – aber nicht unbemerkt bleiben
+                    metrics.mailboxTaskFailed();
+                    log.error("Raum {}: Befehl {} fehlgeschlagen", pin, r.getClass().getName(), e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            if (!queue.isEmpty()) trySchedule();
+        }
+    }
+}
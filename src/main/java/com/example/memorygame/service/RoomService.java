@@ -1,136 +1,317 @@
 package com.example.memorygame.service;
 
-import com.example.memorygame.model.Card;
+import com.example.memorygame.cluster.ClusterNodes;
+import com.example.memorygame.cluster.ForeignRoomException;
+import com.example.memorygame.metrics.GameMetrics;
 import com.example.memorygame.model.Player;
 import com.example.memorygame.model.Room;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Verwaltet Spielräume (in-memory).
  * - Raum anlegen (mit PIN)
  * - Spieler beitreten lassen (nur in LOBBY)
- * - Spiel starten (erstellt Board, setzt ersten Spieler, Timer = 20s)
+ * - Spiel starten (Board aus der {@link BoardFactory}, setzt ersten Spieler; Zugtimer startet der TurnTimerService)
+ *
+ * Jeder Raum hat eine eigene {@link RoomMailbox}; alle Methoden, die einen Raum
+ * verändern, laufen über {@link #submit} im Mailbox-Thread dieses Raums.
+ *
+ * Die Räume sind auf memorygame.rooms.shards {@link RoomShard}s verteilt (0 = einer je Kern),
+ * jeder mit eigener Map, eigenem Mailbox- und Broadcast-Thread und eigener Timer-Spur; der Shard folgt aus
+ * der PIN (Consistent Hashing). {@link #rebalance()} zieht ruhende Räume aus vollen in leere
+ * Shards um; solche Räume stehen in einer kleinen Umzugstabelle, die vor dem Hash gilt.
+ *
+ * Im Cluster hält jeder Knoten nur die Räume, deren PIN ihm gehört ({@link ClusterNodes}).
+ * Entfernt werden Räume über {@link RoomLifecycle}; ihre PIN ist danach eine Sperrzeit lang
+ * nicht vergeben, damit alte Clients nicht in einem fremden neuen Raum landen.
+ * PINs vergibt der {@link PinAllocator} (4 Stellen, bei hoher Belegung bis 6).
  */
 @Service
 public class RoomService {
 
-    /** Räume nach PIN (z. B. "1234"). */
-    private final Map<String, Room> roomsByPin = new ConcurrentHashMap<>();
+    public static final int DEFAULT_BOARD_SIZE = 4, MIN_BOARD_SIZE = 2, MAX_BOARD_SIZE = 20;
+    public static final int MAX_NAME_LENGTH = 32;
+
+    /** Räume nach PIN (z. B. "1234"), verteilt nach {@link RoomShard#home}. */
+    private final RoomShard[] shards;
+
+    /** Umgezogene Räume: PIN -> aktueller Shard (meist leer). */
+    private final Map<String, RoomShard> relocated = new ConcurrentHashMap<>();
+
+    /** Alle Räume als eine Collection (Live-Sicht über alle Shards). */
+    private final Collection<Room> allRooms = new AbstractCollection<>() {
+        @Override public Iterator<Room> iterator() {
+            return Arrays.stream(shards).flatMap(s -> s.rooms.values().stream()).iterator();
+        }
+        @Override public int size() { return roomCount(); }
+    };
 
     private final SecureRandom rnd = new SecureRandom();
 
-    /** Neuen Raum mit zufälliger PIN erzeugen. */
+    private final ClusterNodes cluster;
+    private final GameMetrics metrics;
+    private final BoardFactory boards;
+    private final int maxRooms;
+
+    /** Nur unter Lock auf pins benutzen; derselbe Lock schützt Anlegen, Entfernen und Umziehen von Räumen. */
+    private final PinAllocator pins;
+
+    public RoomService(ClusterNodes cluster, GameMetrics metrics, BoardFactory boards,
+                       @Value("${memorygame.rooms.max:5000}") int maxRooms,
+                       @Value("${memorygame.rooms.pin-cooldown:10m}") Duration pinCooldown,
+                       @Value("${memorygame.pins.min-digits:4}") int minDigits,
+                       @Value("${memorygame.pins.max-digits:6}") int maxDigits,
+                       @Value("${memorygame.pins.widen-at:0.5}") double widenAt,
+                       @Value("${memorygame.rooms.shards:0}") int shards) {
+        this.cluster = cluster;
+        this.metrics = metrics;
+        this.boards = boards;
+        this.maxRooms = maxRooms;
+        this.pins = new PinAllocator(minDigits, maxDigits, widenAt, 1.0 / cluster.nodeCount(),
+                pinCooldown.toMillis(), cluster::isLocal, rnd);
+        this.shards = new RoomShard[shards > 0 ? shards : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < this.shards.length; i++) this.shards[i] = new RoomShard(i);
+    }
+
+    /**
+     * Neuen Raum mit zufälliger PIN erzeugen (nur PINs, die diesem Knoten gehören).
+     * Bei erreichter Obergrenze → IllegalStateException (Platz schafft {@link RoomLifecycle}).
+     */
     public Room createRoom() {
         String id = UUID.randomUUID().toString();
-        String pin = generatePin(4); // 4-stellige PIN
-        Room room = new Room(id, pin);
-        roomsByPin.put(pin, room);
-        return room;
+        synchronized (pins) {
+            if (roomCount() >= maxRooms) throw new IllegalStateException("Maximale Anzahl Räume erreicht");
+            return register(id, pins.allocate(System.currentTimeMillis()));
+        }
     }
 
-    /** Raum per PIN finden. */
-    public Optional<Room> findByPin(String pin) {
-        return Optional.ofNullable(roomsByPin.get(pin));
+    /**
+     * Raum mit bekannter ID und PIN wieder aufnehmen (Wiederherstellung aus dem Journal).
+     * Die Obergrenze gilt hier nicht; belegte, ungültige oder fremde PIN → IllegalStateException.
+     */
+    public Room restore(String id, String pin) {
+        if (!cluster.isLocal(pin)) throw new IllegalStateException("PIN gehört Knoten " + cluster.ownerOf(pin));
+        synchronized (pins) {
+            if (lookup(pin) != null || !pins.claim(pin)) throw new IllegalStateException("PIN nicht verfügbar: " + pin);
+            return register(id, pin);
+        }
     }
 
-    /** Spieler mit Name in LOBBY hinzufügen. */
-    public Player addPlayer(String pin, String name) {
-        Room room = roomsByPin.get(pin);
-        if (room == null) throw new IllegalArgumentException("Raum nicht gefunden");
-        if (room.getState() != Room.State.LOBBY) throw new IllegalStateException("Raum schon gestartet");
+    private Room register(String id, String pin) {
+        RoomShard shard = shards[RoomShard.home(pin, shards.length)];
+        Room room = new Room(id, pin, shard.newMailbox(pin, metrics));
+        room.setShard(shard.index);
+        shard.rooms.put(pin, room);
+        return room;
+    }
 
-        Player p = new Player(UUID.randomUUID().toString(), name);
-        room.addPlayer(p); // Reihenfolge bleibt dank LinkedHashMap im Room erhalten
-        return p;
+    /**
+     * Raum aus der Verwaltung nehmen; die PIN geht in die Sperrzeit.
+     * @return false, wenn der Raum schon entfernt war
+     */
+    public boolean remove(Room room) {
+        synchronized (pins) {
+            if (!shards[room.getShard()].rooms.remove(room.getPin(), room)) return false;
+            relocated.remove(room.getPin());
+            pins.release(room.getPin(), System.currentTimeMillis());
+            return true;
+        }
     }
 
-    /** Spiel starten → erzeugt Board, setzt ersten Spieler, Timer auf 20s. */
-    public Room startGame(String pin) {
-        Room room = roomsByPin.get(pin);
-        if (room == null) throw new IllegalArgumentException("Raum nicht gefunden");
-        if (room.getPlayersInJoinOrder().isEmpty()) throw new IllegalStateException("Keine Spieler");
+    /** Alle Räume (Live-Sicht, schwach konsistent). */
+    public Collection<Room> allRooms() {
+        return allRooms;
+    }
 
-        room.setState(Room.State.RUNNING);
+    public int roomCount() {
+        int n = 0;
+        for (RoomShard s : shards) n += s.rooms.size();
+        return n;
+    }
 
-        // MVP: 4x4 Board erzeugen
-        initBoard(room, 4);
+    public int getMaxRooms() {
+        return maxRooms;
+    }
+
+    /** Befehle, die hinter einem laufenden Befehl desselben Raums warten mussten (Summe aller Mailboxen). */
+    public long contendedSubmits() {
+        long n = 0;
+        for (RoomShard s : shards) n += s.contended.sum();
+        return n;
+    }
 
-        // Erster Spieler ist der zuerst beigetretene
-        String firstId = room.getPlayersInJoinOrder().get(0).getId();
-        room.setCurrentPlayerId(firstId);
+    public int shardCount() {
+        return shards.length;
+    }
 
-        // Zugtimer starten
-        room.setTimeLeft(20);
+    public int shardRooms(int shard) {
+        return shards[shard].rooms.size();
+    }
 
-        return room;
+    public long shardCommands(int shard) {
+        return shards[shard].commands.sum();
     }
 
-    /** Initialisiert das Memory-Board (serverseitig inkl. pairIds). */
-    private void initBoard(Room room, int size) {
-        room.getBoard().clear();
-        room.setBoardSize(size);
+    /** Kennzahlen je Shard (für /api/admin/shards). */
+    public List<RoomShard.Load> shardLoads() {
+        List<RoomShard.Load> loads = new ArrayList<>(shards.length);
+        for (RoomShard s : shards) loads.add(s.load(shards.length));
+        return loads;
+    }
 
-        int total = size * size; // z. B. 16
-        int pairs = total / 2;   // z. B. 8
+    /** Raum per PIN finden. */
+    public Optional<Room> findByPin(String pin) {
+        return Optional.ofNullable(lookup(pin));
+    }
 
-        // Liste mit Paar-IDs, jede zweimal
-        List<Integer> pairIds = new ArrayList<>(total);
-        for (int p = 0; p < pairs; p++) {
-            pairIds.add(p);
-            pairIds.add(p);
+    private RoomShard shardOf(String pin) {
+        if (!relocated.isEmpty()) {
+            RoomShard s = relocated.get(pin);
+            if (s != null) return s;
         }
+        return shards[RoomShard.home(pin, shards.length)];
+    }
 
-        // Mischen
-        Collections.shuffle(pairIds, rnd);
+    private Room lookup(String pin) {
+        RoomShard shard = shardOf(pin);
+        Room room = shard.rooms.get(pin);
+        if (room == null && !relocated.isEmpty()) {
+            // gerade umgezogen: neu im Ziel-Shard eingetragen, bevor er aus dem alten verschwindet
+            RoomShard now = shardOf(pin);
+            if (now != shard) room = now.rooms.get(pin);
+        }
+        return room;
+    }
 
-        // Karten erzeugen
-        for (int pos = 0; pos < total; pos++) {
-            int pairId = pairIds.get(pos);
-            room.getBoard().add(new Card(pos, pairId));
+    /**
+     * Ruhende Räume (nicht RUNNING, Mailbox und Broadcasts abgearbeitet) aus Shards über dem Durchschnitt in die
+     * leersten Shards umziehen, bis kein Shard mehr als ⌈Räume / Shards⌉ hält. Laufende
+     * Spiele bleiben, wo sie sind.
+     * @return Anzahl umgezogener Räume
+     */
+    public int rebalance() {
+        synchronized (pins) {
+            int target = (roomCount() + shards.length - 1) / shards.length;
+            int moved = 0;
+            for (RoomShard from : shards) {
+                int excess = from.rooms.size() - target;
+                for (Iterator<Room> it = from.rooms.values().iterator(); excess > 0 && it.hasNext(); ) {
+                    Room room = it.next();
+                    if (room.getState() == Room.State.RUNNING || !(room.getMailbox() instanceof RoomMailbox mailbox)
+                            || !mailbox.isIdle()) continue;
+                    RoomShard to = Arrays.stream(shards).min(Comparator.comparingInt(s -> s.rooms.size())).orElseThrow();
+                    if (to.rooms.size() >= target) break;
+                    move(room, mailbox, from, to);
+                    excess--;
+                    moved++;
+                }
+            }
+            return moved;
         }
     }
 
-    // --- Helper ---
+    // Reihenfolge: Ziel eintragen, Umzugstabelle, dann aus der Quelle entfernen (siehe lookup)
+    private void move(Room room, RoomMailbox mailbox, RoomShard from, RoomShard to) {
+        String pin = room.getPin();
+        to.rooms.put(pin, room);
+        if (RoomShard.home(pin, shards.length) == to.index) relocated.remove(pin);
+        else relocated.put(pin, to);
+        from.rooms.remove(pin, room);
+        room.setShard(to.index);
+        mailbox.moveTo(to.executor, to.outbound, to.contended);
+    }
 
-    /** Erzeugt eine numerische PIN mit gegebener Länge, kollisionsfrei innerhalb dieses Prozesses. */
-    private String generatePin(int len) {
-        final String digits = "0123456789";
-        String pin;
-        do {
-            StringBuilder sb = new StringBuilder(len);
-            for (int i = 0; i < len; i++) {
-                sb.append(digits.charAt(rnd.nextInt(digits.length())));
+    /**
+     * Führt einen Befehl im Mailbox-Thread des Raums aus.
+     * Unbekannte PIN → Future schlägt mit IllegalArgumentException fehl,
+     * PIN eines anderen Knotens mit {@link ForeignRoomException}.
+     */
+    public <T> CompletableFuture<T> submit(String pin, Function<Room, T> command) {
+        return submit(pin, "other", command);
+    }
+
+    /** Wie {@link #submit(String, Function)}; name taggt die Laufzeit-Metriken (join, reveal, …). */
+    public <T> CompletableFuture<T> submit(String pin, String name, Function<Room, T> command) {
+        Room room = lookup(pin);
+        if (room == null) {
+            if (!cluster.isLocal(pin)) return CompletableFuture.failedFuture(cluster.foreign(pin));
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Raum nicht gefunden"));
+        }
+        long queued = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            room.touch();
+            shards[room.getShard()].commands.increment();
+            try {
+                return command.apply(room);
+            } finally {
+                metrics.command(name, start - queued, System.nanoTime() - start);
             }
-            pin = sb.toString();
-        } while (roomsByPin.containsKey(pin));
-        return pin;
+        }, room.getMailbox());
     }
 
-    public Room restartRound(String pin, boolean resetScores) {
-        Room room = roomsByPin.get(pin);
-        if (room == null) throw new IllegalArgumentException("Raum nicht gefunden");
-        if (room.getPlayersInJoinOrder().isEmpty()) throw new IllegalStateException("Keine Spieler");
+    /** Spieler mit Name in LOBBY hinzufügen. Läuft in der Mailbox des Raums. */
+    public Player addPlayer(Room room, String name) {
+        if (room.getState() != Room.State.LOBBY) throw new IllegalStateException("Raum schon gestartet");
+        validateName(name);
 
-        // Scores zurücksetzen?
-        if (resetScores) {
-            room.getPlayersInJoinOrder().forEach(p -> p.setScore(0));
-        }
+        Player p = new Player(UUID.randomUUID().toString(), name);
+        room.addPlayer(p); // hinten an die Zugreihenfolge
+        return p;
+    }
 
-        // Board neu, Status auf RUNNING
-        room.setState(Room.State.RUNNING);
-        initBoard(room, room.getBoardSize() > 0 ? room.getBoardSize() : 4);
+    /** Spiel starten → erzeugt Board, setzt ersten Spieler. Läuft in der Mailbox des Raums. */
+    public Room startGame(Room room, int boardSize) {
+        return startGame(room, boardSize, boardSize);
+    }
 
-        // erster Spieler bleibt der join-erstes
-        String firstId = room.getPlayersInJoinOrder().get(0).getId();
-        room.setCurrentPlayerId(firstId);
-        room.setTimeLeft(20);
+    /** Spiel mit rows × cols Karten starten (z. B. 4 × 6); Clients zeichnen cols Spalten. */
+    public Room startGame(Room room, int rows, int cols) {
+        if (room.getPlayerCount() == 0) throw new IllegalStateException("Keine Spieler");
+        validateLayout(rows, cols);
+        GameRules.startRound(room, cols, boards.shuffledPairs(rows * cols), false);
         return room;
     }
 
+    /** Name 1–MAX_NAME_LENGTH Zeichen (landet in Broadcasts, Journal und Historie). */
+    public static void validateName(String name) {
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH)
+            throw new IllegalArgumentException("Name fehlt oder ist länger als " + MAX_NAME_LENGTH + " Zeichen");
+    }
 
+    /** Seitenlänge muss gerade sein (size*size Karten = ganze Paare). */
+    public static void validateBoardSize(int size) {
+        validateLayout(size, size);
+    }
 
+    /** Jede Seite MIN–MAX, Kartenzahl gerade (ganze Paare). */
+    public static void validateLayout(int rows, int cols) {
+        if (rows < MIN_BOARD_SIZE || rows > MAX_BOARD_SIZE || cols < MIN_BOARD_SIZE || cols > MAX_BOARD_SIZE
+                || rows * cols % 2 != 0)
+            throw new IllegalStateException("Ungültige Boardgröße (" + MIN_BOARD_SIZE + "–" + MAX_BOARD_SIZE
+                    + " je Seite, gerade Kartenzahl)");
+    }
+
+    /** Neue Runde im selben Raum und Layout (erster Spieler bleibt der zuerst beigetretene). Läuft in der Mailbox des Raums. */
+    public Room restartRound(Room room, boolean resetScores) {
+        if (room.getPlayerCount() == 0) throw new IllegalStateException("Keine Spieler");
+        int cols = room.getBoardSize() > 0 ? room.getBoardSize() : DEFAULT_BOARD_SIZE;
+        int cards = room.getCardCount() > 0 ? room.getCardCount() : cols * cols;
+        GameRules.startRound(room, cols, boards.shuffledPairs(cards), resetScores);
+        return room;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (RoomShard s : shards) s.shutdown();
+    }
 }
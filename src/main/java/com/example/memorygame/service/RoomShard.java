@@ -0,0 +1,78 @@
+package com.example.memorygame.service;
+
+import com.example.memorygame.cluster.ClusterNodes;
+import com.example.memorygame.metrics.GameMetrics;
+import com.example.memorygame.model.Room;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ein Teil der Räume dieses Knotens (siehe {@link RoomService}): eigene Raum-Map, eigene Zähler
+ * und zwei eigene Plattform-Threads:
+ * - "room-{shard}" arbeitet die Mailboxen seiner Räume ab,
+ * - "room-out-{shard}" verschickt deren Broadcasts (Fan-out des Brokers an die Abonnenten).
+ * Ein heißer Raum belegt so nur die Threads seines Shards; die übrigen Shards laufen unberührt
+ * weiter, und mit einem Shard je Kern skaliert der Durchsatz mit den Kernen. Die Timer seiner
+ * Räume laufen auf der Spur {@link Room#getShard()} des GameScheduler.
+ *
+ * Zu welchem Shard eine PIN gehört, bestimmt {@link #home(String, int)} (Jump Consistent Hash):
+ * wächst die Anzahl Shards von n auf n+1, wechselt nur etwa jede (n+1)-te PIN den Shard.
+ */
+public final class RoomShard {
+
+    // eigener Seed, damit die Shard-Wahl nicht mit der Knotenwahl (ClusterNodes) korreliert
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+
+    final int index;
+    final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    final ExecutorService executor;
+    final ExecutorService outbound;
+    final LongAdder contended = new LongAdder();   // siehe RoomMailbox
+    final LongAdder commands = new LongAdder();    // über RoomService.submit ausgeführte Befehle
+
+    /** Kennzahlen eines Shards (schwach konsistent); relocated = per Rebalancing hierher umgezogen. */
+    public record Load(int shard, int rooms, int running, int players, int connections, int relocated,
+                       long commands, long contended) {}
+
+    RoomShard(int index) {
+        this.index = index;
+        this.executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("room-" + index).daemon().factory());
+        this.outbound = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("room-out-" + index).daemon().factory());
+    }
+
+    RoomMailbox newMailbox(String pin, GameMetrics metrics) {
+        return new RoomMailbox(executor, outbound, contended, pin, metrics);
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+        outbound.shutdownNow();
+    }
+
+    Load load(int shards) {
+        int running = 0, players = 0, connections = 0, relocated = 0;
+        for (Room room : rooms.values()) {
+            if (room.getState() == Room.State.RUNNING) running++;
+            players += room.getPlayers().size();
+            connections += room.getConnections();
+            if (home(room.getPin(), shards) != index) relocated++;
+        }
+        return new Load(index, rooms.size(), running, players, connections, relocated, commands.sum(), contended.sum());
+    }
+
+    /** Heimat-Shard einer PIN (0 … shards-1), Jump Consistent Hash nach Lamping/Veach. */
+    static int home(String pin, int shards) {
+        long key = ClusterNodes.mix(pin.hashCode() + SEED);
+        long b = -1, j = 0;
+        while (j < shards) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.memorygame.tournament;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Globale Rangliste eines Turniers über alle seine Räume.
+ *
+ * Die Einträge liegen sortiert in einer Skip-Liste (Punkte absteigend, bei Gleichstand zählt,
+ * wer den Stand zuerst erreicht hat); eine Punkteänderung ist Entfernen + Einfügen, also
+ * O(log n), unabhängig von der Zahl der Räume. Die ersten k liest {@link #top} in O(k).
+ *
+ * Schreiber sind die Mailboxen der Räume (je Spieler genau eine); Updates desselben
+ * Spielers laufen zusätzlich unter dem Lock seines Map-Eintrags.
+ */
+public class Leaderboard {
+
+    /** Ein Spieler in der Rangliste; seq ordnet Gleichstände (kleiner = früher erreicht). */
+    public record Entry(String playerId, String name, String pin, int score, long seq) { }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::score).reversed()
+            .thenComparingLong(Entry::seq)
+            .thenComparing(Entry::playerId);
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<String, Entry> byPlayer = new ConcurrentHashMap<>();
+    private final AtomicLong seq = new AtomicLong();
+
+    /** Stand eines Spielers setzen. @return false, wenn sich nichts geändert hat */
+    public boolean update(String playerId, String name, String pin, int score) {
+        boolean[] changed = {false};
+        byPlayer.compute(playerId, (id, old) -> {
+            if (old != null && old.score() == score && old.name().equals(name) && old.pin().equals(pin)) return old;
+            Entry e = new Entry(id, name, pin, score,
+                    old != null && old.score() == score ? old.seq() : seq.incrementAndGet());
+            if (old != null) ranking.remove(old);
+            ranking.add(e);
+            changed[0] = true;
+            return e;
+        });
+        return changed[0];
+    }
+
+    /** Die ersten k Einträge in Rangfolge. */
+    public List<Entry> top(int k) {
+        List<Entry> out = new ArrayList<>(Math.min(k, byPlayer.size()));
+        for (Entry e : ranking) {
+            if (out.size() == k) break;
+            out.add(e);
+        }
+        return out;
+    }
+
+    public Entry entry(String playerId) { return byPlayer.get(playerId); }
+
+    public int size() { return byPlayer.size(); }
+}
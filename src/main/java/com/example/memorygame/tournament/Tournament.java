@@ -0,0 +1,43 @@
+package com.example.memorygame.tournament;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ein Turnier (Event): viele Räume dieses Knotens, eine gemeinsame {@link Leaderboard}.
+ * Veröffentlicht wird die Rangliste von {@link TournamentService} (Top-k, begrenzte Rate).
+ */
+public class Tournament {
+
+    /** Zuletzt verschickter Stand: Version, Top-k in Rangfolge, Spieler gesamt. */
+    public record Published(long version, List<Leaderboard.Entry> top, int players) { }
+
+    private final String id;
+    private final String name;
+    private final long createdAt = System.currentTimeMillis();
+    private final Set<String> pins = ConcurrentHashMap.newKeySet();
+    private final Leaderboard board = new Leaderboard();
+
+    // Veröffentlichung (Schreiber nur TournamentService.flush unter Lock auf das Turnier)
+    volatile Published published = new Published(0, List.of(), 0);
+    volatile long lastFlushNanos = Long.MIN_VALUE / 2;
+    final AtomicBoolean flushScheduled = new AtomicBoolean();
+    volatile boolean closed;
+
+    public Tournament(String id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public long getCreatedAt() { return createdAt; }
+
+    /** PINs der Räume im Turnier (ohne bereits entfernte Räume). */
+    public Set<String> getPins() { return pins; }
+
+    public Leaderboard getLeaderboard() { return board; }
+    public Published getPublished() { return published; }
+}
@@ -0,0 +1,190 @@
+package com.example.memorygame.tournament;
+
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.service.RoomService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turniere: viele Räume, eine globale Rangliste, live unter /topic/tournament.{id}.
+ *
+ * Punkteänderungen kommen aus den Mailboxen der Räume ({@link #playerChanged}, {@link #roundStarted})
+ * und aktualisieren nur den betroffenen Eintrag der {@link Leaderboard} – es wird nie über alle
+ * Räume gerechnet. Verschickt wird höchstens einmal je memorygame.tournaments.interval:
+ * die Top-k (memorygame.tournaments.top) als LEADERBOARD_DELTA mit den Plätzen, die sich seit dem
+ * letzten Versand geändert haben. Clients holen das Vollbild per SUBSCRIBE /app/tournament.{id}
+ * oder GET /api/tournaments/{id} und wenden danach Deltas mit version = letzte + 1 an.
+ *
+ * Turniere liegen nur im Speicher dieses Knotens und umfassen nur dessen Räume.
+ * Wird ein Raum entfernt, bleiben seine Spieler mit ihrem letzten Stand in der Rangliste.
+ */
+@Service
+public class TournamentService {
+
+    private final RoomService rooms;
+    private final SimpMessagingTemplate messaging;
+    private final GameScheduler scheduler;
+    private final long intervalNanos;
+    private final int topK, maxRooms;
+
+    private final Map<String, Tournament> byId = new ConcurrentHashMap<>();
+    /** PIN -> Turnier des Raums; nur Räume, die einem Turnier angehören. */
+    private final Map<String, Tournament> byPin = new ConcurrentHashMap<>();
+
+    public TournamentService(RoomService rooms, SimpMessagingTemplate messaging, GameScheduler scheduler,
+                             @Value("${memorygame.tournaments.interval:500ms}") Duration interval,
+                             @Value("${memorygame.tournaments.top:50}") int topK,
+                             @Value("${memorygame.tournaments.max-rooms:1000}") int maxRooms) {
+        this.rooms = rooms;
+        this.messaging = messaging;
+        this.scheduler = scheduler;
+        this.intervalNanos = interval.toNanos();
+        this.topK = topK;
+        this.maxRooms = maxRooms;
+    }
+
+    public Tournament create(String name) {
+        Tournament t = new Tournament(UUID.randomUUID().toString(), name);
+        byId.put(t.getId(), t);
+        return t;
+    }
+
+    public Optional<Tournament> find(String id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public int getMaxRooms() { return maxRooms; }
+
+    public int tournamentCount() { return byId.size(); }
+
+    /**
+     * Raum dieses Knotens ins Turnier aufnehmen; seine Spieler kommen mit ihrem Stand in die Rangliste.
+     * Unbekanntes Turnier/Raum → IllegalArgumentException, Raum schon in einem Turnier oder Turnier voll → IllegalStateException.
+     */
+    public CompletableFuture<Room> attach(String id, String pin) {
+        Tournament t = byId.get(id);
+        if (t == null) return CompletableFuture.failedFuture(new IllegalArgumentException("Turnier nicht gefunden"));
+        if (rooms.findByPin(pin).isEmpty()) return CompletableFuture.failedFuture(new IllegalArgumentException("Raum nicht gefunden"));
+        return rooms.submit(pin, "tournament", room -> {
+            if (room.getState() == Room.State.CLOSED) throw new IllegalArgumentException("Raum nicht gefunden");
+            if (t.closed) throw new IllegalArgumentException("Turnier nicht gefunden");
+            Tournament cur = byPin.putIfAbsent(pin, t);
+            if (cur == t) return room;
+            if (cur != null) throw new IllegalStateException("Raum gehört schon zu einem Turnier");
+            if (t.getPins().size() >= maxRooms) {
+                byPin.remove(pin, t);
+                throw new IllegalStateException("Maximale Anzahl Räume im Turnier erreicht");
+            }
+            t.getPins().add(pin);
+            roundStarted(room);
+            return room;
+        });
+    }
+
+    /** Turnier beenden: Räume laufen weiter, Abonnenten bekommen TOURNAMENT_CLOSED. */
+    public boolean remove(String id) {
+        Tournament t = byId.remove(id);
+        if (t == null) return false;
+        synchronized (t) {
+            t.closed = true;
+            for (String pin : t.getPins()) byPin.remove(pin, t);
+            messaging.convertAndSend(topic(id), Map.of("type", "TOURNAMENT_CLOSED", "id", id));
+        }
+        return true;
+    }
+
+    // --- Raumseite (Mailbox des Raums) ---
+
+    /** Spieler beigetreten oder hat gepunktet. */
+    public void playerChanged(Room room, Player p) {
+        Tournament t = byPin.get(room.getPin());
+        if (t != null && t.getLeaderboard().update(p.getId(), p.getName(), room.getPin(), p.getScore())) requestFlush(t);
+    }
+
+    /** Neue Runde (Punkte evtl. zurückgesetzt) oder Raum neu im Turnier: alle Spieler übernehmen. */
+    public void roundStarted(Room room) {
+        Tournament t = byPin.get(room.getPin());
+        if (t == null) return;
+        boolean changed = false;
+        for (Player p : room.getPlayersInJoinOrder()) {
+            changed |= t.getLeaderboard().update(p.getId(), p.getName(), room.getPin(), p.getScore());
+        }
+        if (changed) requestFlush(t);
+    }
+
+    /** Raum entfernt; die PIN kann danach neu vergeben werden. */
+    public void roomClosed(Room room) {
+        Tournament t = byPin.remove(room.getPin());
+        if (t != null) t.getPins().remove(room.getPin());
+    }
+
+    // --- Vollbild ---
+
+    /** Zuletzt verschickte Rangliste (wie LEADERBOARD_DELTA, aber komplett). */
+    public Map<String, Object> snapshot(Tournament t) {
+        Tournament.Published p = t.getPublished();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("type", "LEADERBOARD");
+        out.put("id", t.getId());
+        out.put("name", t.getName());
+        out.put("version", p.version());
+        out.put("players", p.players());
+        out.put("rooms", t.getPins().size());
+        List<Map<String, Object>> entries = new ArrayList<>(p.top().size());
+        for (int i = 0; i < p.top().size(); i++) entries.add(entryMap(i + 1, p.top().get(i)));
+        out.put("entries", entries);
+        return out;
+    }
+
+    public static String topic(String id) {
+        return "/topic/tournament." + id;
+    }
+
+    // --- intern ---
+
+    // höchstens ein Versand je Intervall; Änderungen währenddessen gehen mit dem nächsten raus
+    private void requestFlush(Tournament t) {
+        if (!t.flushScheduled.compareAndSet(false, true)) return;
+        long wait = Math.max(0, t.lastFlushNanos + intervalNanos - System.nanoTime());
+        scheduler.schedule(() -> flush(t), wait, TimeUnit.NANOSECONDS);
+    }
+
+    private void flush(Tournament t) {
+        synchronized (t) {
+            t.lastFlushNanos = System.nanoTime();
+            t.flushScheduled.set(false);                      // spätere Änderungen planen den nächsten Versand
+            if (t.closed) return;
+
+            List<Leaderboard.Entry> top = t.getLeaderboard().top(topK);
+            int players = t.getLeaderboard().size();
+            Tournament.Published prev = t.published;
+            List<Map<String, Object>> changed = new ArrayList<>();
+            for (int i = 0; i < top.size(); i++) {
+                if (i >= prev.top().size() || !top.get(i).equals(prev.top().get(i))) changed.add(entryMap(i + 1, top.get(i)));
+            }
+            if (changed.isEmpty() && top.size() == prev.top().size() && players == prev.players()) return;
+
+            Tournament.Published next = new Tournament.Published(prev.version() + 1, List.copyOf(top), players);
+            t.published = next;
+            messaging.convertAndSend(topic(t.getId()), Map.of(
+                    "type", "LEADERBOARD_DELTA",
+                    "version", next.version(),
+                    "players", players,
+                    "size", top.size(),
+                    "changed", changed));
+        }
+    }
+
+    private static Map<String, Object> entryMap(int rank, Leaderboard.Entry e) {
+        return Map.of("rank", rank, "playerId", e.playerId(), "name", e.name(), "pin", e.pin(), "score", e.score());
+    }
+}
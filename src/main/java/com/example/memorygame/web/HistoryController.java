@@ -0,0 +1,61 @@
+package com.example.memorygame.web;
+
+import com.example.memorygame.history.GameHistory;
+import com.example.memorygame.history.GameRecord;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Historie beendeter Spiele (neueste zuerst, seitenweise) und Statistik je Spieler.
+ * Spieler sind über ihre playerId identifiziert (gilt für alle Runden eines Raums).
+ */
+@RestController
+@RequestMapping("/api/history")
+public class HistoryController {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final GameHistory history;
+
+    public HistoryController(GameHistory history) {
+        this.history = history;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> games(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) return badPage();
+        return ResponseEntity.ok(page(page, size, history.gameCount(), history.games(page, size)));
+    }
+
+    @GetMapping("/players/{playerId}")
+    public ResponseEntity<?> stats(@PathVariable String playerId) {
+        try {
+            return ResponseEntity.ok(history.playerStats(playerId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/players/{playerId}/games")
+    public ResponseEntity<?> playerGames(@PathVariable String playerId,
+                                         @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) return badPage();
+        try {
+            List<GameRecord> games = history.playerGames(playerId, page, size);
+            return ResponseEntity.ok(page(page, size, history.playerStats(playerId).games(), games));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static Map<String, Object> page(int page, int size, int total, List<GameRecord> games) {
+        return Map.of("page", page, "size", size, "total", total, "games", games);
+    }
+
+    private static ResponseEntity<?> badPage() {
+        return ResponseEntity.badRequest().body(Map.of("error", "page/size ungültig (size 1–" + MAX_PAGE_SIZE + ")"));
+    }
+}
@@ -21,6 +21,19 @@ public class HomeController {
         return "host"; // templates/host.html
     }
 
+    // Zuschauer-Ansicht: Host-Seite ohne Steuerung, über /ws-watch
+    @GetMapping("/watch/{pin}")
+    public String watch(@PathVariable String pin, Model model) {
+        model.addAttribute("pin", pin);
+        return "host";
+    }
+
+    // Turnier-Rangliste (live über alle Räume des Turniers)
+    @GetMapping("/tournament/{id}")
+    public String tournament(@PathVariable String id) {
+        return "tournament"; // templates/tournament.html
+    }
+
     // Spieler-Ansicht (Handy)
     @GetMapping("/player/{pin}")
     public String player(@PathVariable String pin, Model model) {
@@ -1,157 +1,181 @@
 package com.example.memorygame.web;
 
-import com.example.memorygame.model.Card;
-import com.example.memorygame.model.Player;
 import com.example.memorygame.model.Room;
 import com.example.memorygame.service.GameService;
+import com.example.memorygame.service.MoveResult;
 import com.example.memorygame.service.RoomService;
-import com.example.memorygame.ws.GameWsService;
-import com.example.memorygame.ws.TurnTimerService;
+import com.example.memorygame.ws.RoomSnapshots;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
+/**
+ * REST-API der Räume. Befehle laufen asynchron in der Mailbox des Raums;
+ * die Endpunkte liefern CompletableFutures, der Servlet-Thread wird sofort frei.
+ */
 @RestController
 @RequestMapping("/api/rooms")
 public class RoomController {
 
+    /**
+     * Antworten auf Klicks, einmal gebaut: OK bzw. still verworfen (Doppelklick, Sperre) → 200,
+     * zu viele Klicks → 429, falsches Spieler-Token → 403, ungültige Position → 404,
+     * nicht am Zug / nicht gestartet → 409.
+     */
+    private static final Map<MoveResult, ResponseEntity<?>> MOVE_RESPONSES = new EnumMap<>(MoveResult.class);
+    static {
+        for (MoveResult r : MoveResult.values()) {
+            int status = switch (r) {
+                case OK, LOCKED, NOT_HIDDEN -> 200;
+                case RATE_LIMITED -> 429;
+                case FORBIDDEN -> 403;
+                case INVALID_POS -> 404;
+                case NOT_RUNNING, NOT_YOUR_TURN -> 409;
+            };
+            Map<String, Object> body = r == MoveResult.OK ? Map.of("ok", true)
+                    : r.message == null ? Map.of("ok", false, "code", r.name())
+                    : Map.of("error", r.message, "code", r.name());
+            MOVE_RESPONSES.put(r, ResponseEntity.status(status).body(body));
+        }
+    }
+
     private final RoomService rooms;
-    private final GameWsService ws;
-    private final TurnTimerService timer;
     private final GameService game;
+    private final RoomSnapshots snapshots;
 
-    public RoomController(RoomService rooms, GameWsService ws, TurnTimerService timer, GameService game) {
+    public RoomController(RoomService rooms, GameService game, RoomSnapshots snapshots) {
         this.rooms = rooms;
-        this.ws = ws;
-        this.timer = timer;
         this.game = game;
+        this.snapshots = snapshots;
     }
 
     @PostMapping
-    public Map<String, Object> createRoom() {
-        Room room = rooms.createRoom();
-        ws.broadcastRoomState(room);
+    public ResponseEntity<?> createRoom() {
+        Room room;
+        try {
+            room = game.createRoom();
+        } catch (IllegalStateException e) {
+            // Obergrenze erreicht und nichts verdrängbar
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
         Map<String, Object> resp = new HashMap<>();
         resp.put("roomId", room.getId());
         resp.put("pin", room.getPin());
         resp.put("state", room.getState());
-        return resp;
+        return ResponseEntity.ok(resp);
     }
 
+    /**
+     * Vollbild des Raums (gleiches JSON wie ROOM_STATE über STOMP), mit ETag auf die Raumversion.
+     * Passendes If-None-Match → 304; gecachtes Vollbild wird ohne Mailbox-Umweg ausgeliefert.
+     */
     @GetMapping("/{pin}")
-    public ResponseEntity<?> getRoom(@PathVariable String pin) {
-        return rooms.findByPin(pin)
-                .<ResponseEntity<?>>map(r -> {
-                    Map<String, Object> resp = new HashMap<>();
-                    resp.put("roomId", r.getId());
-                    resp.put("pin", r.getPin());
-                    resp.put("state", r.getState());
-                    resp.put("timeLeft", r.getTimeLeft());
-                    if (r.getCurrentPlayerId() != null) resp.put("currentPlayerId", r.getCurrentPlayerId());
-
-                    List<Map<String, Object>> players = r.getPlayers().stream().map(p -> {
-                        Map<String, Object> m = new HashMap<>();
-                        m.put("id", p.getId());
-                        m.put("name", p.getName());
-                        m.put("score", p.getScore());
-                        return m;
-                    }).toList();
-                    resp.put("players", players);
-
-                    resp.put("boardSize", r.getBoardSize());
-                    List<Map<String, Object>> board = r.getBoard().stream().map(c -> {
-                        Map<String, Object> m = new HashMap<>();
-                        m.put("pos", c.getPosition());
-                        m.put("state", c.getState().name());
-                        if (c.getState() != com.example.memorygame.model.Card.CardState.HIDDEN) {
-                            String sym = r.getPairSymbols().get(c.getPairId());
-                            if (sym != null) m.put("symbol", sym);
-                        }
-                        return m;
-                    }).toList();
-                    resp.put("board", board);
-
-                    return ResponseEntity.ok(resp);
-                })
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public CompletableFuture<ResponseEntity<?>> getRoom(@PathVariable String pin,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Room room = rooms.findByPin(pin).orElse(null);
+        if (room == null) return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+
+        String etag = RoomSnapshots.etag(room, room.getVersion());
+        if (etag.equals(ifNoneMatch)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+        }
+        Room.Snapshot cached = snapshots.cached(room);
+        if (cached != null) return CompletableFuture.completedFuture(snapshotResponse(room, cached));
+        return reply(rooms.submit(pin, "snapshot", snapshots::current), s -> snapshotResponse(room, s));
+    }
+
+    private static ResponseEntity<?> snapshotResponse(Room room, Room.Snapshot s) {
+        return ResponseEntity.ok()
+                .eTag(RoomSnapshots.etag(room, s.version()))
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(RoomSnapshots.withServerTime(s.json()));
     }
 
     @PostMapping("/{pin}/join")
-    public ResponseEntity<?> join(@PathVariable String pin, @RequestBody Map<String, String> body) {
+    public CompletableFuture<ResponseEntity<?>> join(@PathVariable String pin, @RequestBody Map<String, String> body) {
         String name = body.getOrDefault("name", "").trim();
-        if (name.isEmpty()) return ResponseEntity.badRequest().body(Map.of("error", "Name fehlt"));
-        try {
-            Player p = rooms.addPlayer(pin, name);
-            rooms.findByPin(pin).ifPresent(ws::broadcastRoomState);
-            return ResponseEntity.ok(Map.of("playerId", p.getId(), "name", p.getName(), "pin", pin));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
-        } catch (IllegalStateException e) {
-            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
-        }
+        if (name.isEmpty()) return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Name fehlt")));
+        if (name.length() > RoomService.MAX_NAME_LENGTH)
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Name zu lang (höchstens " + RoomService.MAX_NAME_LENGTH + " Zeichen)")));
+        return reply(game.join(pin, name),
+                p -> ResponseEntity.ok(Map.of("playerId", p.getId(), "token", p.getToken(), "name", p.getName(), "pin", pin)));
     }
 
     @PostMapping("/{pin}/start")
-    public ResponseEntity<?> start(@PathVariable String pin) {
+    public CompletableFuture<ResponseEntity<?>> start(@PathVariable String pin,
+                                                      @RequestBody(required = false) Map<String, Object> body) {
+        int boardSize = RoomService.DEFAULT_BOARD_SIZE;
+        int rows;
         try {
-            Room r = rooms.startGame(pin);
-            ws.broadcastRoomState(r);
-            timer.startCountdown(pin);
-            return ResponseEntity.ok(Map.of("ok", true));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
-        } catch (IllegalStateException e) {
-            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+            if (body != null && body.get("boardSize") != null) {
+                Object v = body.get("boardSize");
+                boardSize = (v instanceof Number) ? ((Number) v).intValue() : Integer.parseInt(v.toString());
+            }
+            rows = boardSize;
+            if (body != null && body.get("rows") != null) {
+                Object v = body.get("rows");
+                rows = (v instanceof Number) ? ((Number) v).intValue() : Integer.parseInt(v.toString());
+            }
+        } catch (NumberFormatException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "boardSize/rows ungültig")));
         }
+        return reply(game.startGame(pin, rows, boardSize), r -> ResponseEntity.ok(Map.of("ok", true)));
     }
 
+    /** Klick: {"playerId", "token", "pos"} – das Token stammt aus der Antwort auf join. */
     @PostMapping("/{pin}/reveal")
-    public ResponseEntity<?> reveal(@PathVariable String pin, @RequestBody Map<String, Object> body) {
+    public CompletableFuture<ResponseEntity<?>> reveal(@PathVariable String pin, @RequestBody Map<String, Object> body) {
         Object pid = body.get("playerId");
+        Object token = body.get("token");
         Object ppos = body.get("pos");
-        if (!(pid instanceof String) || ppos == null)
-            return ResponseEntity.badRequest().body(Map.of("error", "playerId/pos fehlen"));
+        if (!(pid instanceof String) || !(token instanceof String) || ppos == null)
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "playerId/token/pos fehlen")));
         int pos;
         try {
             pos = (ppos instanceof Number) ? ((Number) ppos).intValue() : Integer.parseInt(ppos.toString());
         } catch (NumberFormatException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "pos ungültig"));
-        }
-        try {
-            game.revealCard(pin, (String) pid, pos);
-            return ResponseEntity.ok(Map.of("ok", true));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
-        } catch (IllegalStateException e) {
-            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "pos ungültig")));
         }
+        return reply(game.revealCard(pin, (String) pid, (String) token, pos), MOVE_RESPONSES::get);
     }
 
     @PostMapping("/{pin}/restart")
-    public ResponseEntity<?> restart(@PathVariable String pin, @RequestBody Map<String, Object> body) {
+    public CompletableFuture<ResponseEntity<?>> restart(@PathVariable String pin, @RequestBody Map<String, Object> body) {
         boolean resetScores = false;
         if (body != null && body.containsKey("resetScores")) {
             Object v = body.get("resetScores");
             resetScores = (v instanceof Boolean) ? (Boolean) v : Boolean.parseBoolean(String.valueOf(v));
         }
-        try {
-            Room r = rooms.restartRound(pin, resetScores);
-            ws.broadcastRoomState(r);
-            timer.startCountdown(pin);
-            return ResponseEntity.ok(Map.of("ok", true));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
-        } catch (IllegalStateException e) {
-            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
-        }
+        return reply(game.restartRound(pin, resetScores), r -> ResponseEntity.ok(Map.of("ok", true)));
     }
 
     @PostMapping("/{pin}/stop")
-    public ResponseEntity<?> stop(@PathVariable String pin) {
-        timer.stopCountdown(pin);
-        return ResponseEntity.ok(Map.of("ok", true));
+    public CompletableFuture<ResponseEntity<?>> stop(@PathVariable String pin) {
+        return reply(game.stopCountdown(pin), v -> ResponseEntity.ok(Map.of("ok", true)));
+    }
+
+    // IllegalArgumentException -> 404, IllegalStateException -> 409 (wie bisher)
+    private static <T> CompletableFuture<ResponseEntity<?>> reply(CompletableFuture<T> result,
+                                                                  Function<T, ResponseEntity<?>> ok) {
+        return result.handle((v, ex) -> {
+            if (ex == null) return ok.apply(v);
+            Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+            if (cause instanceof IllegalArgumentException)
+                return ResponseEntity.status(404).body(Map.of("error", cause.getMessage()));
+            if (cause instanceof IllegalStateException)
+                return ResponseEntity.status(409).body(Map.of("error", cause.getMessage()));
+            throw new CompletionException(cause);
+        });
     }
 }
@@ -0,0 +1,51 @@
+package com.example.memorygame.web;
+
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.service.RoomService;
+import com.example.memorygame.service.RoomShard;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verwaltung der Raum-Shards: Last je Shard und Rebalancing ruhender Räume.
+ * Kein Schutz eingebaut – /api/admin/** gehört hinter den Reverse-Proxy bzw. ins interne Netz.
+ */
+@RestController
+@RequestMapping("/api/admin/shards")
+public class ShardAdminController {
+
+    /** Last eines Shards; timersPending ist die Timer-Spur des Shards im GameScheduler. */
+    record ShardStatus(int shard, int rooms, int running, int players, int connections, int relocated,
+                       long commands, long contended, long timersPending) {}
+
+    private final RoomService rooms;
+    private final GameScheduler scheduler;
+
+    public ShardAdminController(RoomService rooms, GameScheduler scheduler) {
+        this.rooms = rooms;
+        this.scheduler = scheduler;
+    }
+
+    @GetMapping
+    public Map<String, Object> shards() {
+        return Map.of("rooms", rooms.roomCount(), "timerWheels", scheduler.wheelCount(), "shards", status());
+    }
+
+    /** Ruhende Räume aus überfüllten Shards umziehen; Antwort mit der neuen Verteilung. */
+    @PostMapping("/rebalance")
+    public Map<String, Object> rebalance() {
+        int moved = rooms.rebalance();
+        return Map.of("moved", moved, "shards", status());
+    }
+
+    private List<ShardStatus> status() {
+        return rooms.shardLoads().stream().map(this::status).toList();
+    }
+
+    private ShardStatus status(RoomShard.Load l) {
+        return new ShardStatus(l.shard(), l.rooms(), l.running(), l.players(), l.connections(), l.relocated(),
+                l.commands(), l.contended(), scheduler.pendingTimers(l.shard()));
+    }
+}
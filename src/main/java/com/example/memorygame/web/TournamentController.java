@@ -0,0 +1,89 @@
+package com.example.memorygame.web;
+
+import com.example.memorygame.model.Room;
+import com.example.memorygame.service.GameService;
+import com.example.memorygame.tournament.Tournament;
+import com.example.memorygame.tournament.TournamentService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * REST-API der Turniere. Live-Rangliste über STOMP: SUBSCRIBE /app/tournament.{id} (Vollbild),
+ * danach /topic/tournament.{id} (LEADERBOARD_DELTA), siehe {@link TournamentService}.
+ */
+@RestController
+@RequestMapping("/api/tournaments")
+public class TournamentController {
+
+    private final TournamentService tournaments;
+    private final GameService game;
+
+    public TournamentController(TournamentService tournaments, GameService game) {
+        this.tournaments = tournaments;
+        this.game = game;
+    }
+
+    /** Turnier anlegen, optional gleich mit {"rooms": n} neuen Räumen. */
+    @PostMapping
+    public CompletableFuture<ResponseEntity<?>> create(@RequestBody(required = false) Map<String, Object> body) {
+        String name = body == null || body.get("name") == null ? "" : body.get("name").toString().trim();
+        int n = 0;
+        if (body != null && body.get("rooms") != null) {
+            try {
+                Object v = body.get("rooms");
+                n = (v instanceof Number) ? ((Number) v).intValue() : Integer.parseInt(v.toString());
+            } catch (NumberFormatException e) {
+                n = -1;
+            }
+        }
+        if (n < 0 || n > tournaments.getMaxRooms())
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "rooms ungültig")));
+
+        Tournament t = tournaments.create(name.isEmpty() ? "Turnier" : name);
+        List<CompletableFuture<Room>> attached = new ArrayList<>(n);
+        try {
+            for (int i = 0; i < n; i++) attached.add(tournaments.attach(t.getId(), game.createRoom().getPin()));
+        } catch (IllegalStateException e) {
+            // Obergrenze der Räume erreicht: Turnier mit den bisher angelegten Räumen behalten
+            if (attached.isEmpty()) {
+                tournaments.remove(t.getId());
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage())));
+            }
+        }
+        return CompletableFuture.allOf(attached.toArray(CompletableFuture[]::new))
+                .handle((v, ex) -> ResponseEntity.ok(Map.of("id", t.getId(), "name", t.getName(), "pins", List.copyOf(t.getPins()))));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(@PathVariable String id) {
+        return tournaments.find(id)
+                .<ResponseEntity<?>>map(t -> ResponseEntity.ok(tournaments.snapshot(t)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /** Bestehenden Raum dieses Knotens aufnehmen. */
+    @PostMapping("/{id}/rooms/{pin}")
+    public CompletableFuture<ResponseEntity<?>> attach(@PathVariable String id, @PathVariable String pin) {
+        return tournaments.attach(id, pin).handle((room, ex) -> {
+            if (ex == null) return ResponseEntity.ok(Map.of("ok", true));
+            Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+            if (cause instanceof IllegalArgumentException)
+                return ResponseEntity.status(404).body(Map.of("error", cause.getMessage()));
+            if (cause instanceof IllegalStateException)
+                return ResponseEntity.status(409).body(Map.of("error", cause.getMessage()));
+            throw new CompletionException(cause);
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(@PathVariable String id) {
+        return tournaments.remove(id) ? ResponseEntity.ok(Map.of("ok", true)) : ResponseEntity.notFound().build();
+    }
+}
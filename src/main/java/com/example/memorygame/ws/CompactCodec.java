@@ -0,0 +1,168 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.model.CardState;
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Kompaktes Binärformat des Raum-Protokolls für /topic/room.{pin}.bin (gleiche Inhalte
+ * wie {@link RoomPayloads}, aber ohne wiederholte Schlüssel und Enum-Namen).
+ *
+ * Alle Zahlen als unsigned LEB128-Varint, Strings als Varint-Länge + UTF-8.
+ * <pre>
+ * u8 FORMAT (=2), u8 Typ (1 = STATE, 2 = DELTA, 3 = CLOSED)
+ * CLOSED: str reason
+ * STATE/DELTA:
+ *   var version, [DELTA: var baseVersion], var serverTime, u8 state (Room.State.ordinal),
+ *   var turnDeadline, var currentPlayer (Index in Beitrittsreihenfolge + 1, 0 = keiner)
+ *   var n Spieler
+ *     STATE: je str id, str name, var score, u8 flags (2 = verbunden)
+ *     DELTA: je var index, u8 flags (1 = neu: str id, str name folgen; 2 = verbunden), var score
+ *   STATE: var boardSize, var cardCount, Kartenzustände 2 Bit je Position (4 je Byte, LSB zuerst),
+ *          dann für jede nicht verdeckte Karte in Positionsreihenfolge str symbol ("" = keins)
+ *   DELTA: var n Karten, je var pos, u8 state (CardState.code), [str symbol, falls nicht verdeckt]
+ * </pre>
+ * Spieler kommen nur in der LOBBY hinzu; im Delta werden sie dort vollständig, danach nur
+ * mit Index und Score verschickt. Aufrufer laufen in der Mailbox des Raums.
+ */
+@Component
+public class CompactCodec {
+
+    public static final int FORMAT = 2;
+    public static final int TYPE_STATE = 1, TYPE_DELTA = 2, TYPE_CLOSED = 3;
+    private static final int FLAG_NEW_PLAYER = 1, FLAG_CONNECTED = 2;
+
+    public byte[] snapshot(Room room) {
+        List<Player> order = room.getPlayersInJoinOrder();
+        int cards = room.getCardCount();
+        Out out = new Out(32 + order.size() * 64 + cards / 2);
+        header(out, room, TYPE_STATE);
+
+        out.varint(order.size());
+        for (Player p : order) {
+            out.string(p.getId());
+            out.string(p.getName());
+            out.varint(p.getScore());
+            out.u8(p.isConnected() ? FLAG_CONNECTED : 0);
+        }
+
+        out.varint(room.getBoardSize());
+        out.varint(cards);
+        byte[] packed = new byte[(cards + 3) / 4];
+        for (int pos = 0; pos < cards; pos++) packed[pos >> 2] |= (byte) (room.getCardState(pos).code() << ((pos & 3) * 2));
+        out.bytes(packed);
+        for (int pos = 0; pos < cards; pos++) {
+            if (room.getCardState(pos) != CardState.HIDDEN) out.string(symbol(room, pos));
+        }
+        return out.toArray();
+    }
+
+    /** Änderungen seit baseVersion; vor room.clearChanges() aufrufen. */
+    public byte[] delta(Room room, long baseVersion) {
+        Out out = new Out(48 + room.getChangedPlayers().size() * 8 + room.getChangedCards().cardinality() * 4);
+        out.u8(FORMAT);
+        out.u8(TYPE_DELTA);
+        out.varint(room.getVersion());
+        out.varint(baseVersion);
+        scalars(out, room);
+
+        boolean lobby = room.getState() == Room.State.LOBBY;
+        int n = 0;
+        for (String id : room.getChangedPlayers()) if (room.getPlayer(id) != null) n++;
+        out.varint(n);
+        for (String id : room.getChangedPlayers()) {
+            Player p = room.getPlayer(id);
+            if (p == null) continue;
+            out.varint(p.getSlot());
+            out.u8((lobby ? FLAG_NEW_PLAYER : 0) | (p.isConnected() ? FLAG_CONNECTED : 0));
+            if (lobby) {
+                out.string(p.getId());
+                out.string(p.getName());
+            }
+            out.varint(p.getScore());
+        }
+
+        var changed = room.getChangedCards();
+        out.varint(changed.stream().filter(room::isValidPos).count());
+        for (int pos = changed.nextSetBit(0); pos >= 0 && room.isValidPos(pos); pos = changed.nextSetBit(pos + 1)) {
+            CardState st = room.getCardState(pos);
+            out.varint(pos);
+            out.u8(st.code());
+            if (st != CardState.HIDDEN) out.string(symbol(room, pos));
+        }
+        return out.toArray();
+    }
+
+    public byte[] closed(String reason) {
+        Out out = new Out(8 + reason.length());
+        out.u8(FORMAT);
+        out.u8(TYPE_CLOSED);
+        out.string(reason);
+        return out.toArray();
+    }
+
+    private void header(Out out, Room room, int type) {
+        out.u8(FORMAT);
+        out.u8(type);
+        out.varint(room.getVersion());
+        scalars(out, room);
+    }
+
+    private void scalars(Out out, Room room) {
+        out.varint(System.currentTimeMillis());
+        out.u8(room.getState().ordinal());
+        out.varint(room.getTurnDeadline());
+        out.varint(room.getCurrentSlot() + 1);      // 0 = niemand am Zug
+    }
+
+    private static String symbol(Room room, int pos) {
+        String s = room.getPairSymbols().get(room.getPairId(pos));
+        return s == null ? "" : s;
+    }
+
+    /** Wachsender Byte-Puffer ohne Synchronisation (anders als ByteArrayOutputStream). */
+    private static final class Out {
+        private byte[] buf;
+        private int len;
+
+        Out(int capacity) { buf = new byte[Math.max(16, capacity)]; }
+
+        private void ensure(int extra) {
+            if (len + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+
+        void u8(int v) {
+            ensure(1);
+            buf[len++] = (byte) v;
+        }
+
+        void varint(long v) {
+            if (v < 0) throw new IllegalArgumentException("negativer Wert");
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        void bytes(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, len, b.length);
+            len += b.length;
+        }
+
+        void string(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            varint(b.length);
+            bytes(b);
+        }
+
+        byte[] toArray() { return Arrays.copyOf(buf, len); }
+    }
+}
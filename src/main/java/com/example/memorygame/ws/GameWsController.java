@@ -0,0 +1,216 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.cluster.ForeignRoomException;
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+import com.example.memorygame.service.GameService;
+import com.example.memorygame.service.MoveGate;
+import com.example.memorygame.service.MoveResult;
+import com.example.memorygame.service.RoomService;
+import com.example.memorygame.tournament.TournamentService;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * STOMP-Befehle unter /app (Gegenstück zu den REST-Endpunkten, ohne HTTP-Roundtrip pro Klick).
+ *
+ * - SUBSCRIBE /app/room.{pin}          → einmaliges Vollbild
+ * - SUBSCRIBE /app/room.{pin}.bin      → einmaliges Vollbild im Binärformat ({@link CompactCodec})
+ * - SEND /app/room.{pin}.join          → {"playerId", "token"} bindet einen per REST beigetretenen
+ *                                         Spieler an diese Session (auch Reconnect), {"name"} tritt neu bei;
+ *                                         Antwort JOIN_ACK mit Token. Die Bindung macht den Spieler "verbunden",
+ *                                         ihr Ende meldet {@link PlayerPresence}.
+ * - SEND /app/room.{pin}.reveal        → {"pos"}; Spieler kommt aus der Session-Bindung; Klicks sind
+ *                                         je Session begrenzt ({@link MoveGate}), Ablehnungen mit "code"
+ * - SEND /app/room.{pin}.start         → {"boardSize"} optional
+ * - SEND /app/room.{pin}.restart       → {"resetScores"} optional
+ * - SUBSCRIBE /app/tournament.{id}     → einmaliges Vollbild der Turnier-Rangliste
+ *
+ * Antworten gehen an /user/queue/reply, Fehler an /user/queue/errors (nur an diese Session).
+ * Gehört die PIN einem anderen Knoten, enthält der Fehler dessen URL ("node").
+ * Erfolgreiche Züge werden nicht extra bestätigt – das ROOM_DELTA auf dem Topic ist die Bestätigung.
+ */
+@Controller
+public class GameWsController {
+
+    private static final String NOT_FOUND = "{\"type\":\"ERROR\",\"error\":\"Raum nicht gefunden\"}";
+    static final String PLAYER_ATTR = "mg.player.";
+    private static final String VERIFIED_ATTR = "mg.verified.";   // Token geprüft; erst dann darf die Session klicken
+    private static final String BUCKET_ATTR = "mg.moves";
+
+    /** Fehlermeldungen je Klick-Ergebnis, einmal gebaut; fehlt ein Eintrag, geht nichts raus. */
+    private static final Map<MoveResult, Map<String, Object>> MOVE_ERRORS = new EnumMap<>(MoveResult.class);
+    static {
+        for (MoveResult r : MoveResult.values()) {
+            if (r.message != null && r != MoveResult.RATE_LIMITED)
+                MOVE_ERRORS.put(r, Map.of("type", "ERROR", "error", r.message, "code", r.name()));
+        }
+    }
+
+    private final RoomService rooms;
+    private final RoomSnapshots snapshots;
+    private final GameService game;
+    private final CompactCodec codec;
+    private final TournamentService tournaments;
+    private final MoveGate moves;
+
+    public GameWsController(RoomService rooms, RoomSnapshots snapshots, GameService game, CompactCodec codec,
+                            TournamentService tournaments, MoveGate moves) {
+        this.rooms = rooms; this.snapshots = snapshots; this.game = game; this.codec = codec;
+        this.tournaments = tournaments; this.moves = moves;
+    }
+
+    // Abo auf /app/room.{pin} -> einmaliges Vollbild direkt an diese Session (Start & Resync).
+    // Liefert das gecachte JSON der aktuellen Version; nur bei veraltetem Cache geht es über die Mailbox.
+    // Der Verweis auf einen fremden Knoten geht als Map raus (wie in error()), damit Jackson escaped.
+    @SubscribeMapping("/room.{pin}")
+    public CompletableFuture<Object> snapshot(@DestinationVariable String pin) {
+        Room room = rooms.findByPin(pin).orElse(null);
+        Room.Snapshot cached = room == null ? null : snapshots.cached(room);
+        CompletableFuture<Room.Snapshot> snap = (cached != null)
+                ? CompletableFuture.completedFuture(cached)
+                : rooms.submit(pin, "snapshot", snapshots::current);
+        return snap.<Object>thenApply(s -> new String(RoomSnapshots.withServerTime(s.json()), StandardCharsets.UTF_8))
+                .exceptionally(ex -> (unwrap(ex) instanceof ForeignRoomException) ? error(ex) : NOT_FOUND);
+    }
+
+    // Binär-Vollbild wird nicht gecacht (kein Jackson, wenige hundert Bytes) und läuft immer über die Mailbox.
+    // Fehler (fremder Knoten, unbekannte PIN) gehen über den Exception-Handler an /user/queue/errors.
+    @SubscribeMapping("/room.{pin}.bin")
+    public CompletableFuture<byte[]> binarySnapshot(@DestinationVariable String pin) {
+        return rooms.submit(pin, "snapshot.bin", codec::snapshot);
+    }
+
+    // Turnier-Rangliste: zuletzt verschickter Stand, Deltas folgen auf /topic/tournament.{id}
+    @SubscribeMapping("/tournament.{id}")
+    public Map<String, Object> tournament(@DestinationVariable String id) {
+        return tournaments.find(id).map(tournaments::snapshot)
+                .orElseThrow(() -> new IllegalArgumentException("Turnier nicht gefunden"));
+    }
+
+    @MessageMapping("/room.{pin}.join")
+    @SendToUser(destinations = "/queue/reply", broadcast = false)
+    public CompletableFuture<Map<String, Object>> join(@DestinationVariable String pin,
+                                                       @Payload Map<String, Object> body,
+                                                       SimpMessageHeaderAccessor headers) {
+        Object pid = body.get("playerId");
+        String name = body.get("name") == null ? "" : body.get("name").toString().trim();
+
+        CompletableFuture<Player> bound;
+        if (pid instanceof String id) {
+            // Reconnect bzw. per REST beigetreten: nur mit dem Token aus der join-Antwort
+            bound = bindSession(headers, pin, id, body.get("token") instanceof String t ? t : null);
+        } else if (!name.isEmpty()) {
+            RoomService.validateName(name);
+            bound = game.join(pin, name).thenCompose(p -> bindSession(headers, pin, p.getId(), p.getToken()));
+        } else {
+            throw new IllegalArgumentException("Name fehlt");
+        }
+        return bound.thenApply(p -> Map.of("type", "JOIN_ACK", "playerId", p.getId(), "token", p.getToken(),
+                "name", p.getName(), "pin", pin));
+    }
+
+    // Abgelehnte Klicks: Meldung an /user/queue/errors; stille Ergebnisse (Sperre, Doppelklick,
+    // Rate-Limit) bekommen keine Antwort – null wird nicht verschickt
+    @MessageMapping("/room.{pin}.reveal")
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public CompletableFuture<Map<String, Object>> reveal(@DestinationVariable String pin,
+                                                         @Payload Map<String, Object> body,
+                                                         SimpMessageHeaderAccessor headers) {
+        String playerId = verifiedPlayer(headers, pin);
+        if (playerId == null) throw new IllegalStateException("Nicht beigetreten");
+        MoveGate.TokenBucket bucket = (MoveGate.TokenBucket) headers.getSessionAttributes()
+                .computeIfAbsent(BUCKET_ATTR, k -> moves.newBucket());
+        return game.revealCard(pin, playerId, intValue(body.get("pos"), "pos"), bucket).thenApply(MOVE_ERRORS::get);
+    }
+
+    @MessageMapping("/room.{pin}.start")
+    public CompletableFuture<Void> start(@DestinationVariable String pin, @Payload(required = false) Map<String, Object> body) {
+        int cols = (body != null && body.get("boardSize") != null)
+                ? intValue(body.get("boardSize"), "boardSize") : RoomService.DEFAULT_BOARD_SIZE;
+        int rows = (body != null && body.get("rows") != null) ? intValue(body.get("rows"), "rows") : cols;
+        return game.startGame(pin, rows, cols).thenApply(r -> null);
+    }
+
+    @MessageMapping("/room.{pin}.restart")
+    public CompletableFuture<Void> restart(@DestinationVariable String pin, @Payload(required = false) Map<String, Object> body) {
+        Object v = body == null ? null : body.get("resetScores");
+        boolean resetScores = (v instanceof Boolean) ? (Boolean) v : Boolean.parseBoolean(String.valueOf(v));
+        return game.restartRound(pin, resetScores).thenApply(r -> null);
+    }
+
+    // Fehler (auch aus den Futures) nur an die auslösende Session
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, Object> error(Throwable ex) {
+        Throwable cause = unwrap(ex);
+        if (cause instanceof ForeignRoomException f)
+            return Map.of("type", "ERROR", "error", f.getMessage(), "node", f.getOwnerUrl());
+        String msg = (cause instanceof IllegalArgumentException || cause instanceof IllegalStateException)
+                ? cause.getMessage() : "Unerwarteter Fehler";
+        return Map.of("type", "ERROR", "error", msg);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+    }
+
+    // --- Session-Bindung ---
+
+    static String boundPlayer(SimpMessageHeaderAccessor headers, String pin) {
+        Map<String, Object> attrs = headers.getSessionAttributes();
+        return attrs == null ? null : (String) attrs.get(PLAYER_ATTR + pin);
+    }
+
+    // Je Raum höchstens ein Spieler pro Session; ein wiederholtes join zählt die Session nicht doppelt
+    private static String verifiedPlayer(SimpMessageHeaderAccessor headers, String pin) {
+        Map<String, Object> attrs = headers.getSessionAttributes();
+        Object id = attrs == null ? null : attrs.get(VERIFIED_ATTR + pin);
+        return id != null && id.equals(attrs.get(PLAYER_ATTR + pin)) ? (String) id : null;
+    }
+
+    // Ohne passendes Token wird nichts gebunden (auch nicht erneut)
+    private CompletableFuture<Player> bindSession(SimpMessageHeaderAccessor headers, String pin, String playerId, String token) {
+        String previous = boundPlayer(headers, pin);
+        if (playerId.equals(previous)) {
+            return rooms.submit(pin, "bind", room -> {
+                Player p = room.getPlayer(playerId);
+                if (p == null) throw new IllegalArgumentException("Spieler nicht gefunden");
+                if (!p.hasToken(token)) throw new IllegalStateException(MoveResult.FORBIDDEN.message);
+                return p;
+            });
+        }
+        if (previous != null) game.disconnect(pin, previous);
+        Map<String, Object> attrs = headers.getSessionAttributes();
+        if (attrs != null) {
+            attrs.remove(VERIFIED_ATTR + pin);
+            attrs.put(PLAYER_ATTR + pin, playerId);   // vor connect: ein Disconnect dazwischen wird gesehen
+        }
+        return game.connect(pin, playerId, token).whenComplete((p, ex) -> {
+            if (attrs == null) return;
+            if (ex != null) attrs.remove(PLAYER_ATTR + pin, playerId);
+            else attrs.put(VERIFIED_ATTR + pin, playerId);
+        });
+    }
+
+    private static int intValue(Object v, String field) {
+        if (v == null) throw new IllegalArgumentException(field + " fehlt");
+        try {
+            return (v instanceof Number) ? ((Number) v).intValue() : Integer.parseInt(v.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " ungültig");
+        }
+    }
+}
@@ -1,57 +1,193 @@
 package com.example.memorygame.ws;
 
-import com.example.memorygame.model.Card;
+import com.example.memorygame.metrics.GameMetrics;
 import com.example.memorygame.model.Room;
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.service.RoomMailbox;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
 
-import java.util.HashMap;
-import java.util.List;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+/**
+ * Verschickt Raumzustände an /topic/room.{pin} (JSON, Protokoll siehe {@link RoomPayloads})
+ * und an /topic/room.{pin}.bin (Binärformat, siehe {@link CompactCodec}).
+ * Kodiert wird nur, was lokal abonniert ist ({@link RoomConnections}); mit externem Broker
+ * und Clients an anderen Knoten memorygame.ws.encode-on-demand=false setzen.
+ *
+ * Broadcasts werden pro Raum zusammengefasst (memorygame.ws.coalesce-window): die erste
+ * Änderung nach einer ruhigen Phase geht sofort raus, weitere innerhalb des Fensters
+ * sammeln sich (Room.changedCards/changedPlayers) und gehen als ein Delta am Fensterende.
+ * Zugwechsel, Statuswechsel (Start, Spielende) und Vollbilder werden nie verzögert.
+ * So bekommt bei 100 Beitritten in wenigen Sekunden jeder Abonnent nur wenige Nachrichten.
+ *
+ * Kodiert wird in der Mailbox des Raums, verschickt auf dem Broadcast-Thread seines Shards
+ * ({@link RoomMailbox#dispatch}) – ein Raum mit vielen Abonnenten hält so weder seine eigenen
+ * Befehle noch die Räume anderer Shards auf. Die Reihenfolge je Raum bleibt erhalten.
+ *
+ * Die Version steigt erst beim Versand. Ein Vollbild, das in der Zwischenzeit entsteht,
+ * trägt daher die alte Version, enthält aber schon Teile des nächsten Deltas – unschädlich,
+ * weil Deltas absolute Werte je Karte/Spieler setzen.
+ *
+ * Zuschauer (/ws-watch) laufen getrennt davon über {@link SpectatorHub}.
+ */
 @Service
 public class GameWsService {
 
     private final SimpMessagingTemplate messaging;
+    private final RoomPayloads payloads;
+    private final RoomSnapshots snapshots;
+    private final ObjectMapper mapper;
+    private final GameMetrics metrics;
+    private final CompactCodec codec;
+    private final boolean encodeOnDemand;
+    private final GameScheduler scheduler;
+    private final long windowNanos;
+    private final SpectatorHub spectators;
 
-    public GameWsService(SimpMessagingTemplate messaging) {
+    public GameWsService(SimpMessagingTemplate messaging, RoomPayloads payloads, RoomSnapshots snapshots,
+                         ObjectMapper mapper, GameMetrics metrics, CompactCodec codec,
+                         @Value("${memorygame.ws.encode-on-demand:true}") boolean encodeOnDemand,
+                         GameScheduler scheduler,
+                         @Value("${memorygame.ws.coalesce-window:25ms}") Duration coalesceWindow,
+                         SpectatorHub spectators) {
         this.messaging = messaging;
+        this.payloads = payloads;
+        this.snapshots = snapshots;
+        this.mapper = mapper;
+        this.metrics = metrics;
+        this.codec = codec;
+        this.encodeOnDemand = encodeOnDemand;
+        this.scheduler = scheduler;
+        this.windowNanos = coalesceWindow.toNanos();
+        this.spectators = spectators;
     }
 
+    /**
+     * Meldet geänderten Raumzustand: sofort senden oder mit weiteren Änderungen zusammenfassen.
+     * Läuft in der Mailbox des Raums.
+     */
     public void broadcastRoomState(Room room) {
-        // Players
-        List<Map<String, Object>> players = room.getPlayers().stream().map(p -> {
-            Map<String, Object> m = new HashMap<>();
-            m.put("id", p.getId());
-            m.put("name", p.getName());
-            m.put("score", p.getScore());
-            return m;
-        }).toList();
-
-        // Board – pos/state immer, symbol NUR wenn nicht hidden
-        List<Map<String, Object>> board = room.getBoard().stream().map(c -> {
-            Map<String, Object> m = new HashMap<>();
-            m.put("pos", c.getPosition());
-            m.put("state", c.getState().name());
-            if (c.getState() != Card.CardState.HIDDEN) {
-                String sym = room.getPairSymbols().get(c.getPairId());
-                if (sym != null) m.put("symbol", sym);
+        long now = System.nanoTime();
+        long wait = room.getLastBroadcastNanos() + windowNanos - now;
+        if (wait <= 0 || room.isBoardReset() || room.isTurnOrStateChanged()) {
+            flush(room, now);
+            return;
+        }
+        metrics.coalesced();
+        room.setBroadcastPending(true);
+        if (room.isFlushScheduled()) return;
+        room.setFlushScheduled(true);
+        scheduler.schedule(room.getShard(), () -> room.getMailbox().execute(() -> {
+            room.setFlushScheduled(false);
+            // inzwischen sofort verschickt oder Raum geschlossen -> nichts zu tun
+            if (room.isBroadcastPending() && room.getState() != Room.State.CLOSED) flush(room, System.nanoTime());
+        }), wait, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sendet die seit dem letzten Broadcast aufgelaufenen Änderungen (oder ein Vollbild nach Board-Reset).
+     * Läuft in der Mailbox des Raums; der Broadcast-Thread des Shards übergibt in derselben
+     * Reihenfolge an den Broker – damit kommen die Versionen in Reihenfolge an.
+     */
+    private void flush(Room room, long now) {
+        room.markBroadcast(now);
+        long base = room.getVersion();
+        room.nextVersion();
+        spectators.publish(room);
+        boolean binary = wantsBinary(room), json = wantsJson(room);
+        if (room.isBoardReset()) {
+            if (binary) sendBinary(room, "snapshot.bin", () -> codec.snapshot(room));
+            // Vollbild einmal serialisieren; REST und Resync-Abos nutzen dieselben Bytes
+            if (json) send(room, topic(room.getPin()), jsonMessage(RoomSnapshots.withServerTime(snapshots.current(room).json())));
+            room.clearChanges();
+            return;
+        }
+        if (binary) sendBinary(room, "delta.bin", () -> codec.delta(room, base));
+        if (json) {
+            // selbst serialisieren (statt Konverter im Template), damit Größe und Dauer messbar sind
+            long t0 = System.nanoTime();
+            byte[] bytes;
+            try {
+                bytes = mapper.writeValueAsBytes(payloads.delta(room, base));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Delta nicht serialisierbar", e);
             }
-            return m;
-        }).toList();
-
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("type", "ROOM_STATE");
-        payload.put("pin", room.getPin());
-        payload.put("state", room.getState().name());
-        payload.put("timeLeft", room.getTimeLeft());
-        payload.put("players", players);
-        payload.put("boardSize", room.getBoardSize());
-        payload.put("board", board);
-        if (room.getCurrentPlayerId() != null) {
-            payload.put("currentPlayerId", room.getCurrentPlayerId());
+            metrics.serialized("delta", bytes.length, System.nanoTime() - t0);
+            send(room, topic(room.getPin()), jsonMessage(bytes));
         }
+        room.clearChanges();
+    }
+
+    /** Raum wurde entfernt – Clients hören auf, sich neu zu verbinden. Läuft in der Mailbox des Raums. */
+    public void broadcastClosed(Room room, String reason) {
+        room.setBroadcastPending(false);
+        Map<String, String> closed = Map.of("type", "ROOM_CLOSED", "pin", room.getPin(), "reason", reason);
+        dispatch(room, () -> messaging.convertAndSend(topic(room.getPin()), closed));
+        if (wantsBinary(room)) send(room, binaryTopic(room.getPin()), binaryMessage(codec.closed(reason)));
+        spectators.closed(room, reason);
+    }
+
+    private boolean wantsBinary(Room room) {
+        return !encodeOnDemand || room.getBinaryConnections() > 0;
+    }
+
+    private boolean wantsJson(Room room) {
+        return !encodeOnDemand || room.getConnections() > room.getBinaryConnections();
+    }
+
+    private void sendBinary(Room room, String type, Supplier<byte[]> encoder) {
+        long t0 = System.nanoTime();
+        byte[] bytes = encoder.get();
+        metrics.serialized(type, bytes.length, System.nanoTime() - t0);
+        send(room, binaryTopic(room.getPin()), binaryMessage(bytes));
+    }
+
+    private void send(Room room, String destination, Message<byte[]> message) {
+        dispatch(room, () -> messaging.send(destination, message));
+    }
+
+    // Kodiert wird in der Mailbox, verschickt (Fan-out des Brokers) auf dem Broadcast-Thread des Shards
+    private static void dispatch(Room room, Runnable send) {
+        if (room.getMailbox() instanceof RoomMailbox mailbox) mailbox.dispatch(send);
+        else send.run();
+    }
+
+    // Fertige Bytes ohne Konverter verschicken. Ohne expliziten Content-Type würde der
+    // ByteArrayMessageConverter application/octet-stream setzen → Binärframe, den SockJS ablehnt.
+    private static Message<byte[]> jsonMessage(byte[] json) {
+        return message(json, MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    // application/octet-stream → STOMP schickt einen binären WebSocket-Frame (nur am nativen Endpunkt)
+    private static Message<byte[]> binaryMessage(byte[] bytes) {
+        return message(bytes, MimeTypeUtils.APPLICATION_OCTET_STREAM);
+    }
+
+    private static Message<byte[]> message(byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor acc = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        acc.setContentType(contentType);
+        acc.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, acc.getMessageHeaders());
+    }
+
+    public static String topic(String pin) {
+        return "/topic/room." + pin;
+    }
 
-        messaging.convertAndSend("/topic/room." + room.getPin(), payload);
+    public static String binaryTopic(String pin) {
+        return topic(pin) + ".bin";
     }
 }
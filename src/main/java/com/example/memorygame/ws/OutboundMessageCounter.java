@@ -0,0 +1,62 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.metrics.GameMetrics;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zählt MESSAGE-Frames auf dem clientOutboundChannel, also nach dem Fan-out des Brokers:
+ * ein Broadcast an einen Raum mit n Abonnenten ergibt n Frames.
+ * Tag "destination" ist nur der Präfix (/topic/room, /queue/…), nie die PIN – sonst
+ * entstünde pro Raum eine eigene Zeitreihe. Antworten an einzelne Sessions zählen unter ihrem
+ * ursprünglichen Ziel (/user/queue/…), nicht unter dem vom Broker übersetzten
+ * /queue/…-user{sessionId} – sonst entstünde pro Session eine.
+ */
+@Component
+public class OutboundMessageCounter implements ChannelInterceptor {
+
+    private static final String USER_SUFFIX = "-user";   // so hängt Springs DefaultUserDestinationResolver die Session an
+
+    private final GameMetrics metrics;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public OutboundMessageCounter(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) return;
+        counters.computeIfAbsent(prefix(destination(message.getHeaders())), d -> Counter.builder("memorygame.ws.outbound")
+                .description("An Clients zugestellte STOMP-Nachrichten")
+                .tag("destination", d)
+                .register(metrics.registry())).increment();
+    }
+
+    // User-Ziele: das Original steht im Header (Simple-Broker) bzw. Native-Header (Relay)
+    private static String destination(MessageHeaders headers) {
+        Object orig = headers.get(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        if (orig instanceof String s) return s;
+        String nativeOrig = NativeMessageHeaderAccessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, headers);
+        return nativeOrig != null ? nativeOrig : SimpMessageHeaderAccessor.getDestination(headers);
+    }
+
+    /** "/topic/room.1234" -> "/topic/room", "/queue/errors-user{sessionId}" -> "/queue/errors", "/user/queue/errors" bleibt. */
+    static String prefix(String dest) {
+        if (dest == null) return "none";
+        int user = dest.indexOf(USER_SUFFIX);
+        if (user >= 0) dest = dest.substring(0, user);
+        int dot = dest.indexOf('.');
+        return dot < 0 ? dest : dest.substring(0, dot);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.service.GameService;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Meldet Spieler ab, wenn ihre STOMP-Session endet. Gebunden wird per join in
+ * {@link GameWsController} (Session-Attribut je PIN); der Verbindungsstatus selbst
+ * (Sessions je Spieler, Zugverkürzung) wird in der Mailbox des Raums geführt.
+ */
+@Component
+public class PlayerPresence {
+
+    private final GameService game;
+
+    public PlayerPresence(GameService game) {
+        this.game = game;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Object> attrs = SimpMessageHeaderAccessor.getSessionAttributes(event.getMessage().getHeaders());
+        if (attrs == null) return;
+        for (String key : List.copyOf(attrs.keySet())) {
+            if (!key.startsWith(GameWsController.PLAYER_ATTR) || !(attrs.get(key) instanceof String playerId)) continue;
+            // entfernen: ein doppeltes Disconnect-Event zählt nicht zweimal; Raum evtl. schon weg -> Future scheitert still
+            if (attrs.remove(key, playerId)) game.disconnect(key.substring(GameWsController.PLAYER_ATTR.length()), playerId);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.model.Room;
+import com.example.memorygame.service.RoomService;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zählt STOMP-Abos auf /topic/room.{pin} und /topic/room.{pin}.bin je Raum (Room.connections).
+ * Der Lifecycle erkennt daran laufende Spiele, zu denen niemand mehr verbunden ist;
+ * {@link GameWsService} kodiert nur die Formate, die jemand abonniert hat.
+ */
+@Component
+public class RoomConnections {
+
+    private static final String PREFIX = "/topic/room.";
+    private static final String BINARY_SUFFIX = ".bin";
+
+    private final RoomService rooms;
+
+    /** Ein gezähltes Abo: der Raum selbst, nicht seine PIN – die kann nach dem Entfernen neu vergeben sein. */
+    private record Subscription(Room room, boolean binary) {}
+
+    /** Session-ID -> (Abo-ID -> Abo) */
+    private final Map<String, Map<String, Subscription>> sessions = new ConcurrentHashMap<>();
+
+    public RoomConnections(RoomService rooms) {
+        this.rooms = rooms;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor h = StompHeaderAccessor.wrap(event.getMessage());
+        String dest = h.getDestination();
+        if (dest == null || !dest.startsWith(PREFIX) || h.getSessionId() == null || h.getSubscriptionId() == null) return;
+        String topic = dest.substring(PREFIX.length());
+        Room room = rooms.findByPin(pin(topic)).orElse(null);
+        if (room == null) return;
+        boolean binary = topic.endsWith(BINARY_SUFFIX);
+        sessions.computeIfAbsent(h.getSessionId(), k -> new ConcurrentHashMap<>())
+                .put(h.getSubscriptionId(), new Subscription(room, binary));
+        room.connectionOpened(binary);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor h = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Subscription> subs = h.getSessionId() == null ? null : sessions.get(h.getSessionId());
+        if (subs == null || h.getSubscriptionId() == null) return;
+        Subscription s = subs.remove(h.getSubscriptionId());
+        if (s != null) s.room().connectionClosed(s.binary());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Subscription> subs = sessions.remove(event.getSessionId());
+        if (subs != null) subs.values().forEach(s -> s.room().connectionClosed(s.binary()));
+    }
+
+    private static String pin(String topic) {
+        return topic.endsWith(BINARY_SUFFIX) ? topic.substring(0, topic.length() - BINARY_SUFFIX.length()) : topic;
+    }
+}
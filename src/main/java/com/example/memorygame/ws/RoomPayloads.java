@@ -0,0 +1,106 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.model.CardState;
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Baut die Nachrichten für das Raum-Protokoll.
+ *
+ * - ROOM_STATE: Vollbild (alle Spieler, komplettes Board) – nach Start/Neustart
+ *   und als Antwort auf ein Abo von /app/room.{pin} (siehe {@link GameWsController}).
+ * - ROOM_DELTA: nur die seit der letzten Nachricht geänderten Karten und Spieler
+ *   plus die kleinen Skalare (state, turnDeadline, currentPlayerId).
+ *
+ * Der Zugtimer wird nicht mehr sekündlich verschickt: "turnDeadline" ist das
+ * Zugende in epoch ms, "serverTime" erlaubt dem Client den Uhrenabgleich.
+ * Vollbilder werden pro Version gecacht ({@link RoomSnapshots}) und enthalten
+ * deshalb nichts Zeitabhängiges; "serverTime" hängt erst die Auslieferung an.
+ *
+ * Jede Nachricht trägt "version"; ein Delta zusätzlich "baseVersion". Passt
+ * baseVersion nicht zur lokalen Version des Clients, holt er ein neues Vollbild.
+ * Aufrufer laufen in der Mailbox des Raums.
+ */
+@Component
+public class RoomPayloads {
+
+    public Map<String, Object> snapshot(Room room) {
+        // Players
+        List<Map<String, Object>> players = room.getPlayers().stream().map(this::playerMap).toList();
+
+        // Board – pos/state immer, symbol NUR wenn nicht hidden
+        List<Map<String, Object>> board = new ArrayList<>(room.getCardCount());
+        for (int pos = 0; pos < room.getCardCount(); pos++) board.add(cardMap(room, pos));
+
+        Map<String, Object> payload = scalars(room, "ROOM_STATE");
+        payload.put("roomId", room.getId());
+        payload.put("players", players);
+        payload.put("boardSize", room.getBoardSize());
+        payload.put("board", board);
+        return payload;
+    }
+
+    public Map<String, Object> delta(Room room, long baseVersion) {
+        Map<String, Object> payload = scalars(room, "ROOM_DELTA");
+        payload.put("baseVersion", baseVersion);
+        payload.put("serverTime", System.currentTimeMillis());
+
+        if (!room.getChangedPlayers().isEmpty()) {
+            List<Map<String, Object>> players = new ArrayList<>(room.getChangedPlayers().size());
+            for (String id : room.getChangedPlayers()) {
+                Player p = room.getPlayer(id);
+                if (p != null) players.add(playerMap(p));
+            }
+            payload.put("players", players);
+        }
+
+        if (!room.getChangedCards().isEmpty()) {
+            List<Map<String, Object>> cards = new ArrayList<>(room.getChangedCards().cardinality());
+            room.getChangedCards().stream()
+                    .filter(room::isValidPos)
+                    .forEach(pos -> cards.add(cardMap(room, pos)));
+            payload.put("cards", cards);
+        }
+        return payload;
+    }
+
+    private Map<String, Object> scalars(Room room, String type) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", type);
+        payload.put("pin", room.getPin());
+        payload.put("version", room.getVersion());
+        payload.put("state", room.getState().name());
+        payload.put("turnDeadline", room.getTurnDeadline());
+        if (room.getCurrentPlayerId() != null) {
+            payload.put("currentPlayerId", room.getCurrentPlayerId());
+        }
+        return payload;
+    }
+
+    private Map<String, Object> playerMap(Player p) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", p.getId());
+        m.put("name", p.getName());
+        m.put("score", p.getScore());
+        m.put("connected", p.isConnected());
+        return m;
+    }
+
+    private Map<String, Object> cardMap(Room room, int pos) {
+        CardState st = room.getCardState(pos);
+        Map<String, Object> m = new HashMap<>();
+        m.put("pos", pos);
+        m.put("state", st.name());
+        if (st != CardState.HIDDEN) {
+            String sym = room.getPairSymbols().get(room.getPairId(pos));
+            if (sym != null) m.put("symbol", sym);
+        }
+        return m;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.metrics.GameMetrics;
+import com.example.memorygame.model.Room;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cache für das serialisierte Vollbild eines Raums. Solange sich die Version
+ * nicht ändert, teilen sich REST-GET, Broadcast nach Start/Neustart und alle
+ * Resync-Abos dieselben Bytes – Jackson läuft pro Version höchstens einmal.
+ *
+ * Zeitabhängiges ("serverTime") steht nicht im Cache, sondern wird beim
+ * Ausliefern hinten angehängt.
+ */
+@Component
+public class RoomSnapshots {
+
+    private final RoomPayloads payloads;
+    private final ObjectMapper mapper;
+    private final GameMetrics metrics;
+
+    public RoomSnapshots(RoomPayloads payloads, ObjectMapper mapper, GameMetrics metrics) {
+        this.payloads = payloads;
+        this.mapper = mapper;
+        this.metrics = metrics;
+    }
+
+    /** Vollbild der aktuellen Version, bei Bedarf neu serialisiert. Läuft in der Mailbox des Raums. */
+    public Room.Snapshot current(Room room) {
+        Room.Snapshot s = room.getSnapshot();
+        if (s != null && s.version() == room.getVersion()) return s;
+        try {
+            long t0 = System.nanoTime();
+            s = new Room.Snapshot(room.getVersion(), mapper.writeValueAsBytes(payloads.snapshot(room)));
+            metrics.serialized("snapshot", s.json().length, System.nanoTime() - t0);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Snapshot nicht serialisierbar", e);
+        }
+        room.setSnapshot(s);
+        return s;
+    }
+
+    /** Gecachtes Vollbild ohne Mailbox-Umweg, falls es zur aktuellen Version passt – sonst null. */
+    public Room.Snapshot cached(Room room) {
+        Room.Snapshot s = room.getSnapshot();
+        return (s != null && s.version() == room.getVersion()) ? s : null;
+    }
+
+    public static String etag(Room room, long version) {
+        return "\"" + room.getId() + "-" + version + "\"";
+    }
+
+    /** Hängt "serverTime" an das gecachte JSON-Objekt an (ohne erneute Serialisierung). */
+    public static byte[] withServerTime(byte[] json) {
+        byte[] tail = (",\"serverTime\":" + System.currentTimeMillis() + "}").getBytes(StandardCharsets.US_ASCII);
+        int end = json.length - 1;                  // schließende Klammer ersetzen
+        byte[] out = Arrays.copyOf(json, end + tail.length);
+        System.arraycopy(tail, 0, out, end, tail.length);
+        return out;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.cluster.ClusterNodes;
+import com.example.memorygame.metrics.GameMetrics;
+import com.example.memorygame.model.Room;
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.service.RoomService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Zuschauer-Stufe: reines WebSocket unter /ws-watch?pin=…, nur lesend, ohne STOMP und Broker.
+ *
+ * Zuschauer bekommen ausschließlich Vollbilder im Binärformat ({@link CompactCodec#snapshot}),
+ * höchstens eins pro memorygame.spectators.interval und Raum. Das Bild wird einmal in der
+ * Mailbox des Raums kodiert; alle Sessions bekommen dasselbe byte[] (ohne Kopie).
+ * Versendet wird auf virtuellen Threads, je Session höchstens ein Sendevorgang; ein langsamer
+ * Zuschauer überspringt Zwischenbilder (nur das neueste wartet). Die Mailbox und damit die
+ * Züge der Spieler warten nie auf Zuschauer.
+ *
+ * Close-Codes: 4404 Raum unbekannt, 4421 Raum liegt auf anderem Knoten (Grund = dessen URL).
+ */
+@Component
+public class SpectatorHub extends AbstractWebSocketHandler {
+
+    public static final int CLOSE_NOT_FOUND = 4404, CLOSE_MISDIRECTED = 4421;
+
+    private static final String VIEWER = "memorygame.viewer";
+
+    private final RoomService rooms;
+    private final ClusterNodes cluster;
+    private final CompactCodec codec;
+    private final GameMetrics metrics;
+    private final GameScheduler scheduler;
+    private final long intervalNanos;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** PIN -> Zuschauer des Raums; Eintrag existiert nur, solange jemand zuschaut. */
+    private final Map<String, Audience> audiences = new ConcurrentHashMap<>();
+
+    public SpectatorHub(RoomService rooms, ClusterNodes cluster, CompactCodec codec, GameMetrics metrics,
+                        GameScheduler scheduler,
+                        @Value("${memorygame.spectators.interval:250ms}") Duration interval) {
+        this.rooms = rooms;
+        this.cluster = cluster;
+        this.codec = codec;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    // --- Raumseite (Mailbox des Raums) ---
+
+    /** Raumzustand hat sich geändert; Bild sofort oder am Ende des Intervalls verschicken. */
+    public void publish(Room room) {
+        Audience a = audiences.get(room.getPin());
+        if (a == null) return;
+        long now = System.nanoTime();
+        long wait = a.lastFrameNanos + intervalNanos - now;
+        if (wait <= 0) {
+            send(a, encode(room, a, now), false);
+            return;
+        }
+        if (a.flushScheduled) return;
+        a.flushScheduled = true;
+        scheduler.schedule(room.getShard(), () -> room.getMailbox().execute(() -> {
+            a.flushScheduled = false;
+            if (room.getState() != Room.State.CLOSED) send(a, encode(room, a, System.nanoTime()), false);
+        }), wait, TimeUnit.NANOSECONDS);
+    }
+
+    /** Raum entfernt: letztes Bild ROOM_CLOSED, danach werden die Verbindungen geschlossen. */
+    public void closed(Room room, String reason) {
+        Audience a = audiences.remove(room.getPin());
+        if (a != null) send(a, codec.closed(reason), true);
+    }
+
+    public int viewerCount() {
+        int n = 0;
+        for (Audience a : audiences.values()) n += a.viewers.size();
+        return n;
+    }
+
+    // --- Sessions ---
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        String pin = session.getUri() == null ? null
+                : UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("pin");
+        if (pin != null && !cluster.isLocal(pin)) {
+            session.close(new CloseStatus(CLOSE_MISDIRECTED, cluster.ownerUrl(pin)));
+            return;
+        }
+        Room room = pin == null ? null : rooms.findByPin(pin).orElse(null);
+        if (room == null) {
+            session.close(new CloseStatus(CLOSE_NOT_FOUND, "Raum nicht gefunden"));
+            return;
+        }
+        Viewer v = new Viewer(session);
+        session.getAttributes().put(VIEWER, v);
+        Audience a = audiences.compute(pin, (k, cur) -> {
+            Audience x = cur == null ? new Audience() : cur;
+            x.viewers.add(v);
+            return x;
+        });
+        // erstes Bild: zuletzt verschicktes, wenn es noch aktuell ist
+        room.getMailbox().execute(() -> {
+            if (room.getState() == Room.State.CLOSED) {
+                offer(v, codec.closed("CLOSED"), true);
+                return;
+            }
+            byte[] frame = a.frame != null && a.frameVersion == room.getVersion() ? a.frame : encode(room, a, a.lastFrameNanos);
+            offer(v, frame, false);
+        });
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        if (!(session.getAttributes().get(VIEWER) instanceof Viewer v)) return;
+        String pin = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("pin");
+        audiences.computeIfPresent(pin, (k, a) -> {
+            a.viewers.remove(v);
+            return a.viewers.isEmpty() ? null : a;
+        });
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws IOException {
+        session.close(CloseStatus.SERVER_ERROR);
+    }
+
+    // Nachrichten von Zuschauern werden ignoriert (AbstractWebSocketHandler tut nichts)
+
+    // --- intern ---
+
+    private byte[] encode(Room room, Audience a, long nanos) {
+        long t0 = System.nanoTime();
+        byte[] frame = codec.snapshot(room);
+        metrics.serialized("spectator.bin", frame.length, System.nanoTime() - t0);
+        a.frame = frame;
+        a.frameVersion = room.getVersion();
+        a.lastFrameNanos = nanos;
+        return frame;
+    }
+
+    private void send(Audience a, byte[] frame, boolean last) {
+        for (Viewer v : a.viewers) offer(v, frame, last);
+    }
+
+    private void offer(Viewer v, byte[] frame, boolean last) {
+        if (last) v.lastFrame = frame;
+        v.next.set(frame);                                    // ersetzt ein noch nicht verschicktes Bild
+        if (v.sending.compareAndSet(false, true)) senders.execute(() -> drain(v));
+    }
+
+    private void drain(Viewer v) {
+        try {
+            byte[] frame;
+            while ((frame = v.next.getAndSet(null)) != null) {
+                if (!v.session.isOpen()) return;
+                v.session.sendMessage(new BinaryMessage(frame));
+                if (frame == v.lastFrame) {
+                    v.session.close(CloseStatus.NORMAL);
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Verbindung weg; afterConnectionClosed räumt auf
+        } finally {
+            v.sending.set(false);
+            if (v.next.get() != null && v.sending.compareAndSet(false, true)) senders.execute(() -> drain(v));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+    }
+
+    /** Zuschauer eines Raums. Felder außer viewers nur in der Mailbox des Raums. */
+    private static final class Audience {
+        final Set<Viewer> viewers = ConcurrentHashMap.newKeySet();
+        byte[] frame;                                         // zuletzt kodiertes Bild
+        long frameVersion = -1;
+        long lastFrameNanos = Long.MIN_VALUE / 2;
+        boolean flushScheduled;
+    }
+
+    /** Eine Zuschauer-Session mit Platz für genau ein wartendes Bild. */
+    private static final class Viewer {
+        final WebSocketSession session;
+        final AtomicReference<byte[]> next = new AtomicReference<>();
+        final AtomicBoolean sending = new AtomicBoolean();
+        volatile byte[] lastFrame;                            // nach diesem Bild schließen
+
+        Viewer(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
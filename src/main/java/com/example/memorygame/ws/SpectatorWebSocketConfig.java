@@ -0,0 +1,27 @@
+package com.example.memorygame.ws;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Reiner WebSocket-Endpunkt für Zuschauer (/ws-watch?pin=…), neben den STOMP-Endpunkten
+ * aus {@link WebSocketConfig}. Zuschauer laufen so weder über den Broker noch über
+ * dessen Kanäle und bremsen die Spieler-Sessions nicht.
+ */
+@Configuration
+@EnableWebSocket
+public class SpectatorWebSocketConfig implements WebSocketConfigurer {
+
+    private final SpectatorHub hub;
+
+    public SpectatorWebSocketConfig(SpectatorHub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(hub, "/ws-watch").setAllowedOriginPatterns("*");
+    }
+}
@@ -1,66 +1,83 @@
 package com.example.memorygame.ws;
 
-import com.example.memorygame.model.Player;
+import com.example.memorygame.journal.RoomJournal;
 import com.example.memorygame.model.Room;
-import com.example.memorygame.service.RoomService;
+import com.example.memorygame.model.RoundStats;
+import com.example.memorygame.sched.GameScheduler;
+import com.example.memorygame.sched.TimingWheel;
+import com.example.memorygame.service.GameRules;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Zugtimer: pro Zug wird genau eine Deadline veröffentlicht (Room.turnDeadline)
+ * und ein einmaliger Ablauf-Task geplant. Die Clients zählen lokal herunter.
+ *
+ * Ist der Spieler am Zug getrennt (keine gebundene Session), dauert sein Zug nur
+ * memorygame.presence.grace (0 = sofort weiter); beim Ablauf überspringt die
+ * Zugreihenfolge getrennte Spieler (Room.nextSlot).
+ */
 @Service
 public class TurnTimerService {
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private final Map<String, ScheduledFuture<?>> tasks = new ConcurrentHashMap<>();
+    public static final int TURN_SECONDS = 20;
+
+    private final Map<String, TimingWheel.Timeout> tasks = new ConcurrentHashMap<>();
 
-    private final RoomService rooms;
     private final GameWsService ws;
+    private final GameScheduler scheduler;
+    private final RoomJournal journal;
+    private final long graceMs;
 
-    public TurnTimerService(RoomService rooms, GameWsService ws) {
-        this.rooms = rooms; this.ws = ws;
+    public TurnTimerService(GameWsService ws, GameScheduler scheduler, RoomJournal journal,
+                            @Value("${memorygame.presence.grace:5s}") Duration grace) {
+        this.ws = ws; this.scheduler = scheduler; this.journal = journal;
+        this.graceMs = grace.toMillis();
     }
 
-    public synchronized void startCountdown(String pin) {
-        stopCountdown(pin);
-        ScheduledFuture<?> f = scheduler.scheduleAtFixedRate(() -> tick(pin), 1, 1, TimeUnit.SECONDS);
-        tasks.put(pin, f);
+    /** Startet den Zug-Countdown neu (neue Deadline). Läuft in der Mailbox des Raums; Broadcast macht der Aufrufer. */
+    public void startCountdown(Room room) {
+        var current = room.getCurrentPlayer();
+        long turnMs = current == null || current.isConnected() ? TURN_SECONDS * 1000L : graceMs;
+        long deadline = System.currentTimeMillis() + turnMs;
+        room.setTurnDeadline(deadline);
+        // Ablauf nur einreihen – ausgewertet wird er wieder in der Mailbox des Raums
+        TimingWheel.Timeout f = scheduler.schedule(room.getShard(),
+                () -> room.getMailbox().execute(() -> expire(room, deadline)), turnMs, TimeUnit.MILLISECONDS);
+        TimingWheel.Timeout old = tasks.put(room.getPin(), f);
+        if (old != null) old.cancel();
     }
 
-    public synchronized void stopCountdown(String pin) {
+    public void stopCountdown(String pin) {
         var f = tasks.remove(pin);
-        if (f != null) f.cancel(true);
+        if (f != null) f.cancel();
     }
 
-    private void tick(String pin) {
-        rooms.findByPin(pin).ifPresent(room -> {
-            // Wenn Spiel vorbei, Timer stoppen
-            if (room.getState() != Room.State.RUNNING) {
-                stopCountdown(pin);
-                return;
-            }
+    private void expire(Room room, long deadline) {
+        // Wenn Spiel vorbei, Timer stoppen
+        if (room.getState() != Room.State.RUNNING) {
+            stopCountdown(room.getPin());
+            return;
+        }
+        // Zug wurde zwischenzeitlich neu gestartet -> dieser Ablauf ist veraltet
+        if (room.getTurnDeadline() != deadline) return;
+        // Vergleich läuft gerade, der Mismatch-Callback wechselt ohnehin den Spieler
+        if (room.isRevealLock()) return;
 
-            // runterzählen
-            int t = room.getTimeLeft();
-            if (t <= 1) {
-                // nächster Spieler + reset 20s
-                List<Player> order = room.getPlayersInJoinOrder();
-                if (order.isEmpty()) return;
-                String cur = room.getCurrentPlayerId();
-                int idx = 0;
-                if (cur != null) {
-                    for (int i = 0; i < order.size(); i++) {
-                        if (order.get(i).getId().equals(cur)) { idx = i; break; }
-                    }
-                    idx = (idx + 1) % order.size();
-                }
-                room.setCurrentPlayerId(order.get(idx).getId());
-                room.setTimeLeft(20);
-            } else {
-                room.setTimeLeft(t - 1);
-            }
-            ws.broadcastRoomState(room);
-        });
+        // halb aufgedeckte Karte wieder umdrehen, nächster Spieler + neue Deadline
+        if (room.getPlayerCount() == 0) return;
+        RoundStats stats = room.getRoundStats();
+        long now = System.currentTimeMillis();
+        stats.turnEnded(RoundStats.TurnEnd.TIMEOUT, now);
+        GameRules.turnTimeout(room);
+        stats.turnStarted(room.getCurrentPlayerId(), now);
+        journal.turnTimedOut(room);
+        startCountdown(room);
+        ws.broadcastRoomState(room);
     }
 }
@@ -1,34 +1,120 @@
 package com.example.memorygame.ws;
 
-
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+/**
+ * STOMP-Konfiguration. Standard ist der eingebaute Simple-Broker (ein Knoten).
+ * Mit memorygame.broker.relay.enabled=true (Profil "relay", siehe application-relay.properties)
+ * laufen /topic und /queue über einen externen STOMP-Broker (RabbitMQ, ActiveMQ),
+ * sodass Broadcasts eines Knotens auch Clients an anderen Knoten erreichen.
+ * Benötigt reactor-netty zur Laufzeit (Maven-Profil "relay").
+ *
+ * Client-Kanäle: mit spring.threads.virtual.enabled=true ein virtueller Thread je Nachricht
+ * (ein Client mit vollem Socket-Puffer belegt dann keinen Pool-Thread), sonst ein Pool mit
+ * memorygame.ws.channel-threads Threads (0 = Spring-Standard, 2 × Kerne). Die Reihenfolge je Session
+ * bleibt in beide Richtungen erhalten (preserveReceiveOrder/preservePublishOrder).
+ * Der Broker-Kanal bleibt synchron: der Simple-Broker verteilt nur an den Outbound-Kanal.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     // Nutze den bereits vorhandenen Bean aus Spring:
     private final TaskScheduler messageBrokerTaskScheduler;
+    private final Relay relay;
+    private final OutboundMessageCounter outboundCounter;
+    private final boolean virtualThreads;
+    private final int channelThreads;
+
+    /** Zugangsdaten des externen Brokers. */
+    record Relay(boolean enabled, String host, int port, String virtualHost,
+                 String clientLogin, String clientPasscode, String systemLogin, String systemPasscode) {}
 
-    public WebSocketConfig(TaskScheduler messageBrokerTaskScheduler) {
+    // @Lazy: der Scheduler stammt aus derselben Broker-Konfiguration, die diesen Configurer einsammelt
+    public WebSocketConfig(@Lazy TaskScheduler messageBrokerTaskScheduler,
+                           OutboundMessageCounter outboundCounter,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           @Value("${memorygame.ws.channel-threads:0}") int channelThreads,
+                           @Value("${memorygame.broker.relay.enabled:false}") boolean relayEnabled,
+                           @Value("${memorygame.broker.relay.host:localhost}") String relayHost,
+                           @Value("${memorygame.broker.relay.port:61613}") int relayPort,
+                           @Value("${memorygame.broker.relay.virtual-host:}") String virtualHost,
+                           @Value("${memorygame.broker.relay.client-login:guest}") String clientLogin,
+                           @Value("${memorygame.broker.relay.client-passcode:guest}") String clientPasscode,
+                           @Value("${memorygame.broker.relay.system-login:guest}") String systemLogin,
+                           @Value("${memorygame.broker.relay.system-passcode:guest}") String systemPasscode) {
         this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+        this.outboundCounter = outboundCounter;
+        this.virtualThreads = virtualThreads;
+        this.channelThreads = channelThreads;
+        this.relay = new Relay(relayEnabled, relayHost, relayPort, virtualHost,
+                clientLogin, clientPasscode, systemLogin, systemPasscode);
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Clients hängen ?pin=… an, damit der Load-Balancer per PIN auf den Besitzer-Knoten routen kann
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
+        // Reines WebSocket ohne SockJS: nur hier gehen Binärframes (/topic/room.{pin}.bin)
+        registry.addEndpoint("/ws-native").setAllowedOriginPatterns("*");
+        // Frames einer Session nacheinander an die Controller (join vor reveal, reveal vor reveal),
+        // auch wenn der Inbound-Kanal je Nachricht einen eigenen Thread nimmt
+        registry.setPreserveReceiveOrder(true);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        configureExecutor(registration, "ws-in-");
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        configureExecutor(registration, "ws-out-");
+        registration.interceptors(outboundCounter);
+    }
+
+    private void configureExecutor(ChannelRegistration registration, String threadPrefix) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadPrefix);
+            executor.setVirtualThreads(true);
+            registration.executor(executor);
+        } else if (channelThreads > 0) {
+            registration.taskExecutor().corePoolSize(channelThreads).maxPoolSize(channelThreads);
+        }
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic")
-                .setTaskScheduler(messageBrokerTaskScheduler)     // Heartbeats ermöglichen
-                .setHeartbeatValue(new long[]{10000, 10000});     // 10s senden/erwarten
+        if (relay.enabled()) {
+            var r = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relay.host())
+                    .setRelayPort(relay.port())
+                    .setClientLogin(relay.clientLogin())
+                    .setClientPasscode(relay.clientPasscode())
+                    .setSystemLogin(relay.systemLogin())
+                    .setSystemPasscode(relay.systemPasscode())
+                    .setSystemHeartbeatSendInterval(10000)
+                    .setSystemHeartbeatReceiveInterval(10000)
+                    // User-Ziele anderer Knoten über den Broker auflösen
+                    .setUserDestinationBroadcast("/topic/unresolved-user")
+                    .setUserRegistryBroadcast("/topic/user-registry");
+            if (!relay.virtualHost().isBlank()) r.setVirtualHost(relay.virtualHost());
+        } else {
+            registry.enableSimpleBroker("/topic", "/queue")       // /queue für Antworten an einzelne Sessions
+                    .setTaskScheduler(messageBrokerTaskScheduler)     // Heartbeats ermöglichen
+                    .setHeartbeatValue(new long[]{10000, 10000});     // 10s senden/erwarten
+        }
         registry.setApplicationDestinationPrefixes("/app");
+        // Deltas bauen aufeinander auf -> Reihenfolge pro Session beibehalten
+        registry.setPreservePublishOrder(true);
     }
 }
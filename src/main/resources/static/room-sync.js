@@ -0,0 +1,315 @@
+// Gemeinsamer Raum-Client für Host- und Spieler-Ansicht.
+// Hält den Raumzustand lokal, wendet ROOM_DELTA-Nachrichten an und holt
+// bei einer Versionslücke ein frisches Vollbild über /app/room.{pin}.
+// Der Zug-Countdown läuft lokal gegen die vom Server gemeldete Deadline.
+// Befehle (join/reveal/start/restart) gehen über STOMP an /app/room.{pin}.<cmd>;
+// Antworten und Fehler kommen nur an diese Session (/user/queue/reply, /user/queue/errors).
+//
+// Transport: zuerst reines WebSocket (/ws-native) mit dem Binärformat auf /topic/room.{pin}.bin
+// (siehe CompactCodec.java); kommt darüber nie eine Verbindung zustande, SockJS (/ws) mit JSON.
+// Binärframes brauchen @stomp/stompjs (ab 5) – stompjs 2 zerlegt Frames an Null-Bytes.
+//
+// Zuschauer (opts.spectator): reines WebSocket auf /ws-watch, nur Vollbilder im Binärformat,
+// kein STOMP, keine Befehle (siehe SpectatorHub.java).
+(function () {
+
+    const CARD_STATES = ['HIDDEN', 'REVEALED', 'MATCHED'];
+    const ROOM_STATES = ['LOBBY', 'RUNNING', 'FINISHED', 'CLOSED'];
+    const utf8 = new TextDecoder();
+
+    // Liest das Binärformat in dieselben Objekte wie die JSON-Nachrichten
+    function decodeCompact(bytes) {
+        let i = 0;
+        const u8 = () => bytes[i++];
+        const varint = () => {
+            let v = 0, mul = 1, b;
+            do { b = bytes[i++]; v += (b & 0x7f) * mul; mul *= 128; } while (b & 0x80);  // > 32 Bit, daher ohne Shift
+            return v;
+        };
+        const str = () => { const n = varint(); const s = utf8.decode(bytes.subarray(i, i + n)); i += n; return s; };
+
+        u8();                                   // Format
+        const type = u8();
+        if (type === 3) return { type: 'ROOM_CLOSED', reason: str() };
+        const m = { type: type === 1 ? 'ROOM_STATE' : 'ROOM_DELTA', version: varint() };
+        if (type === 2) m.baseVersion = varint();
+        m.serverTime = varint();
+        m.state = ROOM_STATES[u8()];
+        m.turnDeadline = varint();
+        m.currentIndex = varint() - 1;          // -1 = keiner; Auflösung zur ID in apply*
+        const n = varint();
+        m.players = [];
+        for (let k = 0; k < n; k++) {
+            if (type === 1) { m.players.push({ id: str(), name: str(), score: varint(), connected: !!(u8() & 2) }); continue; }
+            const p = { index: varint() };
+            const flags = u8();
+            if (flags & 1) { p.id = str(); p.name = str(); }
+            p.score = varint();
+            p.connected = !!(flags & 2);
+            m.players.push(p);
+        }
+        if (type === 1) {
+            m.boardSize = varint();
+            const count = varint();
+            const packed = i;
+            i += (count + 3) >> 2;
+            m.board = new Array(count);
+            for (let pos = 0; pos < count; pos++) {
+                const st = CARD_STATES[(bytes[packed + (pos >> 2)] >> ((pos & 3) * 2)) & 3];
+                m.board[pos] = { pos, state: st };
+            }
+            m.board.forEach(c => { if (c.state !== 'HIDDEN') { const sym = str(); if (sym) c.symbol = sym; } });
+        } else {
+            const c = varint();
+            m.cards = [];
+            for (let k = 0; k < c; k++) {
+                const card = { pos: varint(), state: CARD_STATES[u8()] };
+                if (card.state !== 'HIDDEN') { const sym = str(); if (sym) card.symbol = sym; }
+                m.cards.push(card);
+            }
+        }
+        return m;
+    }
+
+    function RoomSync(pin, onState, opts) {
+        this.pin = pin;
+        this.onState = onState;     // wird mit dem vollständigen Zustand aufgerufen
+        this.opts = opts || {};     // onConnect(), onReply(msg), onError(text), spectator
+        this.state = null;
+        this.stomp = null;
+        this.retryMs = 1000;
+        this.resyncPending = false;
+        this.closed = false;
+        this.binary = !!window.WebSocket && this.opts.binary !== false;   // Binärformat über /ws-native
+        this.binaryWorked = false;  // einmal verbunden -> bei Abbrüchen nicht auf SockJS wechseln
+        this.clockOffset = 0;       // Serverzeit - lokale Zeit (ms)
+        setInterval(() => this.tickCountdown(), 250);
+    }
+
+    // --- Initial REST fetch (damit sofort Inhalt sichtbar ist) ---
+    // Liefert dasselbe ROOM_STATE-JSON wie STOMP; der Browser revalidiert per ETag.
+    RoomSync.prototype.fetchOnce = async function () {
+        try {
+            const res = await fetch('/api/rooms/' + encodeURIComponent(this.pin));
+            if (res.status === 421) { this.moveToNode(res.headers.get('X-Memorygame-Node-Url')); return; }
+            if (!res.ok) return;
+            this.applySnapshot(await res.json());
+        } catch (_) {}
+    };
+
+    // --- WebSocket / STOMP mit Heartbeats & Reconnect ---
+    RoomSync.prototype.connect = function () {
+        if (this.opts.spectator) { this.watch(); return; }
+        const self = this;
+        const pinQuery = '?pin=' + encodeURIComponent(self.pin);         // ?pin für PIN-Routing am Load-Balancer
+        const binary = self.binary;
+        const proto = location.protocol === 'https:' ? 'wss://' : 'ws://';
+        let connected = false;
+
+        const stomp = new StompJs.Client({
+            webSocketFactory: () => binary
+                ? new WebSocket(proto + location.host + '/ws-native' + pinQuery)
+                : new SockJS('/ws' + pinQuery),
+            reconnectDelay: 0,              // Reconnect machen wir selbst (Backoff, Transportwechsel)
+            heartbeatOutgoing: 10000,       // wir senden alle 10s
+            heartbeatIncoming: 10000,       // wir erwarten alle 10s
+            debug: () => {}                 // leise
+        });
+        self.stomp = stomp;
+
+        stomp.onWebSocketClose = () => {
+            if (self.closed || self.stomp !== stomp) return;     // Raum entfernt bzw. schon ersetzt
+            // reines WebSocket wird unterwegs geblockt (Proxy) -> ab jetzt SockJS/JSON
+            if (binary && !connected && !self.binaryWorked) self.binary = false;
+            setTimeout(() => self.connect(), self.retryMs);     // Reconnect mit Backoff
+            self.retryMs = Math.min(self.retryMs * 2, 10000);
+        };
+
+        stomp.onConnect = () => {
+            connected = true;
+            if (binary) self.binaryWorked = true;
+            self.retryMs = 1000; // reset Backoff
+            self.resyncPending = false;
+            const topic = '/topic/room.' + self.pin + (binary ? '.bin' : '');
+            stomp.subscribe(topic, msg => self.handle(msg));
+            stomp.subscribe('/user/queue/reply', msg => {
+                try { self.opts.onReply && self.opts.onReply(JSON.parse(msg.body)); } catch (_) {}
+            });
+            stomp.subscribe('/user/queue/errors', msg => {
+                try {
+                    const err = JSON.parse(msg.body);
+                    self.resyncPending = false;
+                    if (err.node) { self.moveToNode(err.node); return; }
+                    self.opts.onError && self.opts.onError(err.error);
+                } catch (_) {}
+            });
+            self.resync();       // Vollbild nach (Re-)Connect
+            self.opts.onConnect && self.opts.onConnect();
+        };
+
+        stomp.activate();
+    };
+
+    // --- Zuschauer: jede Nachricht ist ein Vollbild (oder ROOM_CLOSED) ---
+    RoomSync.prototype.watch = function () {
+        const self = this;
+        const proto = location.protocol === 'https:' ? 'wss://' : 'ws://';
+        const ws = new WebSocket(proto + location.host + '/ws-watch?pin=' + encodeURIComponent(self.pin));
+        ws.binaryType = 'arraybuffer';
+        self.socket = ws;
+
+        ws.onopen = () => { self.retryMs = 1000; self.opts.onConnect && self.opts.onConnect(); };
+        ws.onmessage = ev => {
+            try {
+                const data = decodeCompact(new Uint8Array(ev.data));
+                if (data.type === 'ROOM_STATE') self.applySnapshot(data);
+                else if (data.type === 'ROOM_CLOSED') self.applyClosed();
+            } catch (e) { console.warn('WS parse error', e); }
+        };
+        ws.onclose = ev => {
+            if (self.closed || self.socket !== ws) return;
+            if (ev.code === 4421) { self.moveToNode(ev.reason); return; }   // anderer Knoten
+            if (ev.code === 4404) { self.applyClosed(); return; }            // Raum unbekannt
+            setTimeout(() => self.connect(), self.retryMs);
+            self.retryMs = Math.min(self.retryMs * 2, 10000);
+        };
+    };
+
+    // Befehl über STOMP senden; false, wenn (noch) keine Verbindung besteht
+    RoomSync.prototype.send = function (cmd, body) {
+        if (!this.stomp || !this.stomp.connected) return false;
+        this.stomp.publish({
+            destination: '/app/room.' + this.pin + '.' + cmd,
+            headers: {'content-type': 'application/json'},
+            body: JSON.stringify(body || {})
+        });
+        return true;
+    };
+
+    RoomSync.prototype.disconnect = function () {
+        const stomp = this.stomp, socket = this.socket;
+        this.stomp = null;
+        this.socket = null;
+        try { stomp && stomp.deactivate(); } catch (_) {}
+        try { socket && socket.close(); } catch (_) {}
+    };
+
+    // Einmaliges Abo auf /app/room.{pin}(.bin): Server antwortet direkt mit ROOM_STATE
+    RoomSync.prototype.resync = function () {
+        if (this.opts.spectator) return;     // Zuschauer bekommen ohnehin nur Vollbilder
+        if (!this.stomp || !this.stomp.connected || this.resyncPending) return;
+        this.resyncPending = true;
+        const sub = this.stomp.subscribe('/app/room.' + this.pin + (this.binary ? '.bin' : ''), msg => {
+            this.resyncPending = false;
+            try { sub.unsubscribe(); } catch (_) {}
+            this.handle(msg);
+        });
+    };
+
+    // Raum liegt auf einem anderen Knoten -> dieselbe Seite dort öffnen
+    RoomSync.prototype.moveToNode = function (baseUrl) {
+        if (!baseUrl || baseUrl === location.origin) return;
+        location.href = baseUrl + location.pathname + location.search;
+    };
+
+    RoomSync.prototype.handle = function (msg) {
+        try {
+            const binary = (msg.headers['content-type'] || '').startsWith('application/octet-stream');
+            const data = binary ? decodeCompact(msg.binaryBody) : JSON.parse(msg.body);
+            if (data.type === 'ERROR' && data.node) { this.moveToNode(data.node); return; }
+            if (data.type === 'ROOM_STATE') this.applySnapshot(data);
+            else if (data.type === 'ROOM_DELTA') this.applyDelta(data);
+            else if (data.type === 'ROOM_CLOSED') this.applyClosed();
+        } catch (e) { console.warn('WS parse error', e); }
+    };
+
+    // Raum entfernt (Inaktivität/Obergrenze): kein Reconnect mehr, Zustand CLOSED anzeigen
+    RoomSync.prototype.applyClosed = function () {
+        this.closed = true;
+        this.disconnect();
+        if (!this.state) return;
+        this.state.state = 'CLOSED';
+        this.state.turnDeadline = 0;
+        this.state.timeLeft = 0;
+        this.onState(this.state);
+    };
+
+    RoomSync.prototype.applySnapshot = function (s) {
+        if (this.state && (s.version ?? 0) < this.state.version) return; // veraltet
+        this.syncClock(s);
+        const players = (s.players || []).slice();
+        this.state = {
+            pin: s.pin || this.pin,
+            version: s.version ?? 0,
+            state: s.state,
+            currentPlayerId: currentId(s, players),
+            turnDeadline: s.turnDeadline || 0,
+            timeLeft: 0,
+            players: players,
+            boardSize: s.boardSize || 4,
+            board: Array.isArray(s.board) ? s.board.slice() : null
+        };
+        this.state.timeLeft = this.remainingSeconds();
+        this.onState(this.state);
+    };
+
+    RoomSync.prototype.applyDelta = function (d) {
+        const s = this.state;
+        if (!s) { this.resync(); return; }
+        if (d.version <= s.version) return;                       // schon bekannt
+        if (d.baseVersion !== s.version) { this.resync(); return; } // Lücke -> Vollbild
+
+        this.syncClock(d);
+        s.version = d.version;
+        s.state = d.state;
+        s.turnDeadline = d.turnDeadline || 0;
+
+        // JSON: Spieler per ID; Binär: per Index in Beitrittsreihenfolge, Name nur bei neuen Spielern
+        for (const p of (d.players || [])) {
+            const i = p.id ? s.players.findIndex(x => x.id === p.id) : p.index;
+            const known = i >= 0 && i < s.players.length;
+            if (!known && !p.id) { this.resync(); return; }
+            const entry = p.id ? { id: p.id, name: p.name, score: p.score, connected: p.connected }
+                : Object.assign({}, s.players[i], { score: p.score, connected: p.connected });
+            if (known) s.players[i] = entry; else s.players.push(entry);
+        }
+        s.currentPlayerId = currentId(d, s.players);
+        if (d.cards && d.cards.length) {
+            if (!s.board) { this.resync(); return; }
+            d.cards.forEach(c => { s.board[c.pos] = c; });
+        }
+        s.timeLeft = this.remainingSeconds();
+        this.onState(s);
+    };
+
+    // JSON trägt currentPlayerId, das Binärformat den Index in der Spielerliste
+    function currentId(msg, players) {
+        if (msg.currentIndex === undefined) return msg.currentPlayerId || null;
+        return msg.currentIndex >= 0 && players[msg.currentIndex] ? players[msg.currentIndex].id : null;
+    }
+
+    // --- Lokaler Countdown ---
+    RoomSync.prototype.syncClock = function (msg) {
+        if (typeof msg.serverTime === 'number') this.clockOffset = msg.serverTime - Date.now();
+    };
+
+    RoomSync.prototype.remainingSeconds = function () {
+        const s = this.state;
+        if (!s || !s.turnDeadline) return 0;
+        const ms = s.turnDeadline - (Date.now() + this.clockOffset);
+        return ms <= 0 ? 0 : Math.ceil(ms / 1000);
+    };
+
+    // nur neu rendern, wenn sich die angezeigte Sekunde ändert
+    RoomSync.prototype.tickCountdown = function () {
+        const s = this.state;
+        if (!s || s.state !== 'RUNNING') return;
+        const t = this.remainingSeconds();
+        if (t !== s.timeLeft) {
+            s.timeLeft = t;
+            this.onState(s);
+        }
+    };
+
+    window.RoomSync = RoomSync;
+})();
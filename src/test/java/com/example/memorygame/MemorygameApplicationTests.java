@@ -3,7 +3,7 @@ package com.example.memorygame;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"memorygame.journal.dir=target/test-journal", "memorygame.history.dir=target/test-history"})
 class MemorygameApplicationTests {
 
 	@Test
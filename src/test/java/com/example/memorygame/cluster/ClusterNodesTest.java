@@ -0,0 +1,47 @@
+package com.example.memorygame.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterNodesTest {
+
+	private static final List<String> NODES = List.of("a=http://app-a:8080", "b=http://app-b:8080/", "c=http://app-c:8080");
+
+	@Test
+	void everyPinHasExactlyOneOwnerAgreedByAllNodes() {
+		ClusterNodes a = new ClusterNodes("a", NODES), b = new ClusterNodes("b", NODES), c = new ClusterNodes("c", NODES);
+		Map<String, Integer> perNode = new HashMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			String pin = String.format("%04d", i);
+			String owner = a.ownerOf(pin);
+			assertEquals(owner, b.ownerOf(pin));
+			assertEquals(owner, c.ownerOf(pin));
+			int local = (a.isLocal(pin) ? 1 : 0) + (b.isLocal(pin) ? 1 : 0) + (c.isLocal(pin) ? 1 : 0);
+			assertEquals(1, local);
+			perNode.merge(owner, 1, Integer::sum);
+		}
+		// grob gleichmäßig verteilt
+		perNode.values().forEach(n -> assertTrue(n > 2_800 && n < 3_900, "Verteilung: " + perNode));
+		assertEquals("http://app-b:8080", a.ownerUrl(firstOwnedBy(b)));
+	}
+
+	@Test
+	void withoutNodeListEveryPinIsLocal() {
+		ClusterNodes single = new ClusterNodes("local", List.of());
+		assertFalse(single.isClustered());
+		assertTrue(single.isLocal("1234"));
+		assertThrows(IllegalStateException.class, () -> new ClusterNodes("x", NODES));
+	}
+
+	private static String firstOwnedBy(ClusterNodes node) {
+		for (int i = 0; ; i++) {
+			String pin = String.format("%04d", i);
+			if (node.isLocal(pin)) return pin;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.memorygame.history;
+
+import com.example.memorygame.model.RoundStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryStoreTest {
+
+	@TempDir
+	Path dir;
+
+	private static GameRecord game(int i) {
+		return new GameRecord("room-" + i, "1234", i, 4, 16, 1000L * i, 1000L * i + 500, 20, false,
+				List.of(new GameRecord.PlayerResult("anna", "Anna", i % 2 == 0 ? 5 : 3, i % 2 == 0 ? 1 : 2),
+						new GameRecord.PlayerResult("ben-" + i, "Ben", i % 2 == 0 ? 3 : 5, i % 2 == 0 ? 2 : 1)),
+				List.of(new RoundStats.Turn("anna", 300, 2, 1, RoundStats.TurnEnd.MISMATCH),
+						new RoundStats.Turn("ben-" + i, 200, 2, 0, RoundStats.TurnEnd.FINISHED)));
+	}
+
+	@Test
+	void pagesNewestFirstAndKeepsPlayerTotalsAcrossReopen() throws Exception {
+		try (HistoryStore store = new HistoryStore(dir)) {
+			List<GameRecord> batch = new ArrayList<>();
+			for (int i = 0; i < 25; i++) batch.add(game(i));
+			store.append(batch.subList(0, 10), false);
+			store.append(batch.subList(10, 25), true);
+		}
+		try (HistoryStore store = new HistoryStore(dir)) {
+			assertEquals(25, store.count());
+			List<GameRecord> first = store.page(0, 10);
+			assertEquals(game(24), first.get(0));
+			assertEquals(5, store.page(2, 10).size());
+			assertTrue(store.page(3, 10).isEmpty());
+
+			PlayerStats anna = store.stats("anna");
+			assertEquals(25, anna.games());
+			assertEquals(13, anna.wins());
+			assertEquals(300, anna.avgTurnMs());
+			assertEquals(List.of(game(20), game(19)), store.playerPage("anna", 2, 2));
+			assertNull(store.stats("nobody"));
+		}
+	}
+
+	@Test
+	void unencodableGameIsSkippedAndHugePagesAreEmpty() throws Exception {
+		GameRecord huge = new GameRecord("room-x", "9999", 1, 4, 16, 0, 1, 0, false,
+				List.of(new GameRecord.PlayerResult("x", "x".repeat(70_000), 0, 1)), List.of());
+		try (HistoryStore store = new HistoryStore(dir)) {
+			assertEquals(2, store.append(List.of(game(1), huge, game(2)), true));
+			assertEquals(List.of(game(2), game(1)), store.page(0, 10));
+			assertTrue(store.page(21_474_837, 100).isEmpty());
+			assertTrue(store.playerPage("anna", Integer.MAX_VALUE, 100).isEmpty());
+		}
+	}
+
+	@Test
+	void tornTailIsCutOffOnOpen() throws Exception {
+		try (HistoryStore store = new HistoryStore(dir)) {
+			store.append(List.of(game(1), game(2)), true);
+		}
+		try (FileChannel ch = FileChannel.open(dir.resolve(HistoryStore.FILE), StandardOpenOption.WRITE)) {
+			ch.write(ByteBuffer.allocate(12).putInt(500).putInt(0).putInt(7).flip(), ch.size());   // halber Satz
+		}
+		try (HistoryStore store = new HistoryStore(dir)) {
+			assertEquals(2, store.count());
+			store.append(List.of(game(3)), true);
+		}
+		try (HistoryStore store = new HistoryStore(dir)) {
+			assertEquals(List.of(game(3), game(2), game(1)), store.page(0, 10));
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.memorygame.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveLogTest {
+
+	@TempDir
+	Path dir;
+
+	private static List<String> read(MoveLog log, long from) throws Exception {
+		List<String> out = new ArrayList<>();
+		log.replay(from, (lsn, p) -> out.add(lsn + ":" + StandardCharsets.UTF_8.decode(p)));
+		return out;
+	}
+
+	@Test
+	void appendsAcrossSegmentsAndReopensAtTheEnd() throws Exception {
+		try (MoveLog log = new MoveLog(dir, 4096)) {
+			for (int i = 0; i < 500; i++) assertEquals(i, log.append(("satz-" + i).getBytes(StandardCharsets.UTF_8)));
+			assertTrue(log.segmentCount() > 1);
+		}
+		try (MoveLog log = new MoveLog(dir, 4096)) {
+			assertEquals(500, log.nextLsn());
+			assertEquals(500, log.append("neu".getBytes(StandardCharsets.UTF_8)));
+			List<String> all = read(log, 0);
+			assertEquals(501, all.size());
+			assertEquals("499:satz-499", all.get(499));
+			assertEquals(List.of("500:neu"), read(log, 500));
+		}
+	}
+
+	@Test
+	void tornTailIsCutOffOnOpen() throws Exception {
+		try (MoveLog log = new MoveLog(dir, 4096)) {
+			log.append("a".getBytes(StandardCharsets.UTF_8));
+			log.append("b".getBytes(StandardCharsets.UTF_8));
+		}
+		// zweiten Satz beschädigen (CRC passt nicht mehr)
+		Path seg;
+		try (Stream<Path> s = Files.list(dir)) { seg = s.findFirst().orElseThrow(); }
+		try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.WRITE)) {
+			ch.write(ByteBuffer.wrap(new byte[]{'x'}), MoveLog.HEADER + 1 + MoveLog.HEADER);
+		}
+		try (MoveLog log = new MoveLog(dir, 4096)) {
+			assertEquals(List.of("0:a"), read(log, 0));
+			assertEquals(1, log.append("c".getBytes(StandardCharsets.UTF_8)));
+			assertEquals(List.of("0:a", "1:c"), read(log, 0));
+		}
+	}
+
+	@Test
+	void deleteBeforeKeepsSegmentsNeededForReplay() throws Exception {
+		try (MoveLog log = new MoveLog(dir, 4096)) {
+			for (int i = 0; i < 10; i++) log.append(new byte[100]);
+			long start = log.roll();
+			log.append("nach".getBytes(StandardCharsets.UTF_8));
+			log.deleteBefore(start);
+			assertEquals(1, log.segmentCount());
+			assertEquals(List.of(start + ":nach"), read(log, start));
+		}
+	}
+}
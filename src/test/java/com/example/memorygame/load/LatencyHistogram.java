@@ -0,0 +1,51 @@
+package com.example.memorygame.load;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/** Lock-freies Histogramm mit 100-µs-Buckets bis 10 s (darüber: Überlauf-Bucket). */
+final class LatencyHistogram {
+
+    private static final long BUCKET_NANOS = 100_000;
+    private static final int BUCKETS = 100_000;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+        int b = (int) Math.min(BUCKETS, Math.max(0, nanos) / BUCKET_NANOS);
+        counts.incrementAndGet(b);
+        max.accumulate(nanos);
+    }
+
+    long count() {
+        long n = 0;
+        for (int i = 0; i <= BUCKETS; i++) n += counts.get(i);
+        return n;
+    }
+
+    /** Perzentil in Millisekunden (Obergrenze des Buckets), p in [0, 100]. */
+    double percentileMillis(double p) {
+        long total = count();
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(1, rank)) return i == BUCKETS ? maxMillis() : (i + 1) * BUCKET_NANOS / 1e6;
+        }
+        return maxMillis();
+    }
+
+    double maxMillis() { return max.get() / 1e6; }
+
+    /** Inhalt übernehmen und zurücksetzen (für Intervall-Berichte). */
+    LatencyHistogram drainTo(LatencyHistogram target) {
+        for (int i = 0; i <= BUCKETS; i++) {
+            long c = counts.getAndSet(i, 0);
+            if (c != 0) target.counts.addAndGet(i, c);
+        }
+        target.max.accumulate(max.getThenReset());
+        return target;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.memorygame.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless-Lastgenerator: legt Räume per REST an, lässt simulierte Spieler per
+ * SockJS/STOMP beitreten und spielen und misst Klick → Broadcast-Latenz.
+ *
+ * Start (Server läuft bereits):
+ *   mvn -Ploadtest test-compile exec:exec -Dload.args="rooms=200 players=4 duration=120"
+ *
+ * Optionen (key=value, auch --key=value):
+ *   --url=http://localhost:8080  --rooms=50  --players=4  --board=4
+ *   --duration=60 (s)  --think-ms=800  --jitter-ms=600  --ramp=200 (Sessions/s)
+ *
+ * Alle 5 s eine Zeile mit Raten und Perzentilen des Intervalls, am Ende eine Gesamtauswertung.
+ */
+public final class LoadGenerator {
+
+    /** Zähler – von allen Spielern geteilt. */
+    static final class Stats {
+        final LongAdder connected = new LongAdder();
+        final LongAdder sent = new LongAdder();
+        final LongAdder clicks = new LongAdder();
+        final LongAdder received = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder transportErrors = new LongAdder();
+        final LongAdder lostClicks = new LongAdder();
+        final LongAdder gaps = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    final Stats stats = new Stats();
+
+    private final String url;
+    private final int rooms, players, board, durationSec, thinkMs, jitterMs, rampPerSec;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ScheduledExecutorService timers = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread t = new Thread(r, "load-think");
+                t.setDaemon(true);
+                return t;
+            });
+    private final List<SimPlayer> all = new CopyOnWriteArrayList<>();
+
+    LoadGenerator(Map<String, String> opts) {
+        url = opts.getOrDefault("url", "http://localhost:8080").replaceAll("/$", "");
+        rooms = Integer.parseInt(opts.getOrDefault("rooms", "50"));
+        players = Integer.parseInt(opts.getOrDefault("players", "4"));
+        board = Integer.parseInt(opts.getOrDefault("board", "4"));
+        durationSec = Integer.parseInt(opts.getOrDefault("duration", "60"));
+        thinkMs = Integer.parseInt(opts.getOrDefault("think-ms", "800"));
+        jitterMs = Integer.parseInt(opts.getOrDefault("jitter-ms", "600"));
+        rampPerSec = Integer.parseInt(opts.getOrDefault("ramp", "200"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new java.util.HashMap<>();
+        for (String a : args) {
+            String kv = a.startsWith("--") ? a.substring(2) : a;
+            int eq = kv.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Unbekannte Option: " + a);
+            opts.put(kv.substring(0, eq), kv.substring(eq + 1));
+        }
+        new LoadGenerator(opts).run();
+    }
+
+    void run() throws Exception {
+        WebSocketStompClient client = stompClient();
+        long rampNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rampPerSec);
+        System.out.printf("Lastlauf: %d Räume × %d Spieler gegen %s, %d s%n", rooms, players, url, durationSec);
+
+        // 1) Räume anlegen, Spieler per REST beitreten lassen, STOMP-Sessions aufbauen (gedrosselt)
+        long t0 = System.nanoTime();
+        for (int r = 0; r < rooms; r++) {
+            String pin = post("/api/rooms", "{}").path("pin").asText();
+            for (int p = 0; p < players; p++) {
+                JsonNode joined = post("/api/rooms/" + pin + "/join", "{\"name\":\"bot" + p + "\"}");
+                SimPlayer player = new SimPlayer(this, mapper, pin, joined.path("playerId").asText(),
+                        joined.path("token").asText(), p == 0);
+                all.add(player);
+                client.connectAsync(url + "/ws?pin=" + pin, player)
+                        .exceptionally(ex -> { stats.transportErrors.increment(); return null; });
+                long next = t0 + all.size() * rampNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+        waitForConnections(Duration.ofSeconds(30));
+
+        // 2) Spiele starten (Host jedes Raums)
+        for (SimPlayer p : all) if (p.isHost()) p.start(board);
+
+        // 3) Laufen lassen, alle 5 s berichten
+        LatencyHistogram total = new LatencyHistogram();
+        long start = System.nanoTime(), lastReport = start;
+        long[] last = snapshot();
+        System.out.println("   t[s]  sessions  clicks/s   msgs/s  errors  lost  gaps   p50[ms]  p99[ms]  max[ms]");
+        while (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(durationSec)) {
+            Thread.sleep(5_000);
+            long now = System.nanoTime();
+            double secs = (now - lastReport) / 1e9;
+            long[] cur = snapshot();
+            LatencyHistogram interval = stats.latency.drainTo(new LatencyHistogram());
+            System.out.printf(Locale.ROOT, "%7.0f  %8d  %8.0f  %7.0f  %6d  %4d  %4d  %8.1f  %7.1f  %7.1f%n",
+                    (now - start) / 1e9, cur[0], (cur[1] - last[1]) / secs, (cur[2] - last[2]) / secs,
+                    cur[3] - last[3], cur[4] - last[4], cur[5] - last[5],
+                    interval.percentileMillis(50), interval.percentileMillis(99), interval.maxMillis());
+            interval.drainTo(total);
+            last = cur;
+            lastReport = now;
+        }
+
+        stats.latency.drainTo(total);
+        all.forEach(SimPlayer::disconnect);
+        timers.shutdownNow();
+
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Gesamt über %.0f s: %d Klicks (%.0f/s), %d Nachrichten empfangen (%.0f/s)%n",
+                secs, stats.clicks.sum(), stats.clicks.sum() / secs, stats.received.sum(), stats.received.sum() / secs);
+        System.out.printf(Locale.ROOT, "Fehler: %d STOMP, %d Transport, %d Klicks ohne Echo, %d Versionslücken%n",
+                stats.errors.sum(), stats.transportErrors.sum(), stats.lostClicks.sum(), stats.gaps.sum());
+        System.out.printf(Locale.ROOT, "Latenz Klick→Broadcast [ms]: p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f  (n=%d)%n",
+                total.percentileMillis(50), total.percentileMillis(90), total.percentileMillis(99),
+                total.percentileMillis(99.9), total.maxMillis(), total.count());
+        System.exit(0);
+    }
+
+    // --- für SimPlayer ---
+
+    void later(Runnable task, long delayMs) {
+        try {
+            timers.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // Lauf ist vorbei
+        }
+    }
+
+    long thinkMillis() {
+        return thinkMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs) : 0);
+    }
+
+    // --- intern ---
+
+    private long[] snapshot() {
+        return new long[]{stats.connected.sum(), stats.clicks.sum(), stats.received.sum(),
+                stats.errors.sum() + stats.transportErrors.sum(), stats.lostClicks.sum(), stats.gaps.sum()};
+    }
+
+    private void waitForConnections(Duration max) throws InterruptedException {
+        long deadline = System.nanoTime() + max.toNanos();
+        while (stats.connected.sum() < all.size() && System.nanoTime() < deadline) Thread.sleep(100);
+        System.out.printf("%d/%d Sessions verbunden%n", stats.connected.sum(), all.size());
+    }
+
+    private JsonNode post(String path, String json) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(url + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        HttpResponse<byte[]> res = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
+        if (res.statusCode() != 200) throw new IllegalStateException(path + " → HTTP " + res.statusCode());
+        return mapper.readTree(res.body());
+    }
+
+    private static WebSocketStompClient stompClient() {
+        WebSocketStompClient client = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        client.setMessageConverter(new RawBytes());
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.setPoolSize(2);
+        heartbeats.setThreadNamePrefix("load-heartbeat-");
+        heartbeats.initialize();
+        client.setTaskScheduler(heartbeats);
+        client.setDefaultHeartbeat(new long[]{10_000, 10_000});
+        client.setInboundMessageSizeLimit(1 << 20);
+        return client;
+    }
+
+    /** Payloads unverändert als byte[] durchreichen (JSON parst der Spieler selbst). */
+    private static final class RawBytes extends AbstractMessageConverter {
+        RawBytes() { super(new ArrayList<>()); }
+
+        @Override protected boolean supports(Class<?> clazz) { return clazz == byte[].class; }
+        @Override protected boolean supportsMimeType(MessageHeaders headers) { return true; }
+        @Override protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object hint) { return message.getPayload(); }
+        @Override protected Object convertToInternal(Object payload, MessageHeaders headers, Object hint) { return payload; }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.memorygame.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ein simulierter Spieler mit eigener STOMP-Session. Führt das Board lokal mit
+ * (ROOM_STATE/ROOM_DELTA wie room-sync.js), klickt nach Bedenkzeit eine verdeckte
+ * Karte, wenn er am Zug ist, und misst Klick → erste Nachricht mit dieser Karte aufgedeckt.
+ * Der Host (erster Spieler im Raum) startet das Spiel und startet beendete Runden neu.
+ */
+final class SimPlayer extends StompSessionHandlerAdapter implements StompFrameHandler {
+
+    private static final byte HIDDEN = 0, REVEALED = 1, MATCHED = 2;
+    private static final long CLICK_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final LoadGenerator gen;
+    private final ObjectMapper mapper;
+    final String pin;
+    final String playerId;
+    private final String token;
+    final boolean host;
+
+    private StompSession session;
+
+    // Lokaler Raumzustand – Zugriff nur unter synchronized(this)
+    private long version = -1;
+    private String state = "LOBBY";
+    private String currentPlayerId;
+    private byte[] cards = new byte[0];
+    private final Map<Integer, Long> pendingClicks = new HashMap<>();   // pos -> Sendezeit (nanoTime)
+    private boolean clickScheduled, restartScheduled, resyncPending;
+
+    SimPlayer(LoadGenerator gen, ObjectMapper mapper, String pin, String playerId, String token, boolean host) {
+        this.gen = gen; this.mapper = mapper; this.pin = pin; this.playerId = playerId; this.token = token; this.host = host;
+    }
+
+    // --- STOMP ---
+
+    @Override
+    public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+        this.session = session;
+        session.subscribe("/topic/room." + pin, this);
+        session.subscribe("/user/queue/errors", new StompFrameHandler() {
+            @Override public Type getPayloadType(StompHeaders h) { return byte[].class; }
+            @Override public void handleFrame(StompHeaders h, Object payload) { gen.stats.errors.increment(); }
+        });
+        send("join", Map.of("playerId", playerId, "token", token));   // Session an den Spieler binden
+        resync();
+        gen.stats.connected.increment();
+    }
+
+    @Override
+    public void handleTransportError(StompSession session, Throwable exception) {
+        gen.stats.transportErrors.increment();
+    }
+
+    @Override
+    public void handleException(StompSession s, org.springframework.messaging.simp.stomp.StompCommand c,
+                                StompHeaders h, byte[] payload, Throwable ex) {
+        gen.stats.errors.increment();
+    }
+
+    @Override
+    public Type getPayloadType(StompHeaders headers) { return byte[].class; }
+
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        long now = System.nanoTime();
+        if (!(payload instanceof byte[] bytes) || bytes.length == 0) return;
+        gen.stats.received.increment();
+        JsonNode msg;
+        try {
+            msg = mapper.readTree(bytes);
+        } catch (Exception e) {
+            gen.stats.errors.increment();
+            return;
+        }
+        synchronized (this) {
+            switch (msg.path("type").asText()) {
+                case "ROOM_STATE" -> applySnapshot(msg);
+                case "ROOM_DELTA" -> applyDelta(msg);
+                default -> { return; }
+            }
+            resolveClicks(now);
+            act();
+        }
+    }
+
+    void disconnect() {
+        if (session != null && session.isConnected()) session.disconnect();
+    }
+
+    boolean isHost() { return host; }
+
+    void start(int boardSize) {
+        send("start", Map.of("boardSize", boardSize));
+    }
+
+    // --- Zustand ---
+
+    private void applySnapshot(JsonNode s) {
+        resyncPending = false;
+        long v = s.path("version").asLong();
+        if (v < version) return;
+        version = v;
+        scalars(s);
+        JsonNode board = s.path("board");
+        cards = new byte[board.size()];
+        for (JsonNode c : board) cards[c.path("pos").asInt()] = code(c.path("state").asText());
+    }
+
+    private void applyDelta(JsonNode d) {
+        long v = d.path("version").asLong();
+        if (v <= version) return;
+        if (version < 0) return;                     // Vollbild steht noch aus
+        if (d.path("baseVersion").asLong() != version) { gen.stats.gaps.increment(); resync(); return; }
+        version = v;
+        scalars(d);
+        for (JsonNode c : d.path("cards")) {
+            int pos = c.path("pos").asInt();
+            if (pos >= 0 && pos < cards.length) cards[pos] = code(c.path("state").asText());
+        }
+    }
+
+    private void scalars(JsonNode m) {
+        state = m.path("state").asText(state);
+        currentPlayerId = m.hasNonNull("currentPlayerId") ? m.get("currentPlayerId").asText() : null;
+    }
+
+    private void resolveClicks(long now) {
+        pendingClicks.entrySet().removeIf(e -> {
+            int pos = e.getKey();
+            if (pos < cards.length && cards[pos] != HIDDEN) { gen.stats.latency.record(now - e.getValue()); return true; }
+            if (now - e.getValue() > CLICK_TIMEOUT_NANOS) { gen.stats.lostClicks.increment(); return true; }
+            return false;
+        });
+    }
+
+    // --- Spiellogik ---
+
+    private void act() {
+        if ("FINISHED".equals(state) && host && !restartScheduled) {
+            restartScheduled = true;
+            gen.later(() -> { synchronized (this) { restartScheduled = false; } send("restart", Map.of()); }, 2_000);
+            return;
+        }
+        if (!"RUNNING".equals(state) || !playerId.equals(currentPlayerId)) return;
+        if (clickScheduled || !pendingClicks.isEmpty() || revealedCount() >= 2) return;   // Vergleich läuft
+        clickScheduled = true;
+        gen.later(this::click, gen.thinkMillis());
+    }
+
+    private void click() {
+        int pos;
+        synchronized (this) {
+            clickScheduled = false;
+            if (!"RUNNING".equals(state) || !playerId.equals(currentPlayerId) || revealedCount() >= 2) return;
+            pos = randomHidden();
+            if (pos < 0) return;
+            pendingClicks.put(pos, System.nanoTime());
+        }
+        if (send("reveal", Map.of("pos", pos))) gen.stats.clicks.increment();
+    }
+
+    private int revealedCount() {
+        int n = 0;
+        for (byte c : cards) if (c == REVEALED) n++;
+        return n;
+    }
+
+    private int randomHidden() {
+        int hidden = 0;
+        for (byte c : cards) if (c == HIDDEN) hidden++;
+        if (hidden == 0) return -1;
+        int k = ThreadLocalRandom.current().nextInt(hidden);
+        for (int pos = 0; pos < cards.length; pos++) if (cards[pos] == HIDDEN && k-- == 0) return pos;
+        return -1;
+    }
+
+    private void resync() {
+        if (resyncPending || session == null) return;
+        resyncPending = true;
+        StompSession.Subscription[] sub = new StompSession.Subscription[1];
+        sub[0] = session.subscribe("/app/room." + pin, new StompFrameHandler() {
+            @Override public Type getPayloadType(StompHeaders h) { return byte[].class; }
+            @Override public void handleFrame(StompHeaders h, Object payload) {
+                if (sub[0] != null) sub[0].unsubscribe();
+                SimPlayer.this.handleFrame(h, payload);
+            }
+        });
+    }
+
+    private boolean send(String cmd, Map<String, ?> body) {
+        if (session == null || !session.isConnected()) return false;
+        try {
+            StompHeaders h = new StompHeaders();
+            h.setDestination("/app/room." + pin + "." + cmd);
+            h.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            session.send(h, mapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8));
+            gen.stats.sent.increment();
+            return true;
+        } catch (Exception e) {
+            gen.stats.errors.increment();
+            return false;
+        }
+    }
+
+    private static byte code(String s) {
+        return switch (s) {
+            case "REVEALED" -> REVEALED;
+            case "MATCHED" -> MATCHED;
+            default -> HIDDEN;
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.memorygame.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomTest {
+
+	private static Room roomWith(int players) {
+		Room room = new Room("id", "1234", Runnable::run);
+		for (int i = 0; i < players; i++) {
+			Player p = new Player("p" + i, "Spieler " + i);
+			p.sessionOpened();
+			room.addPlayer(p);
+		}
+		return room;
+	}
+
+	@Test
+	void nextSlotWrapsAroundAndSkipsDisconnectedPlayers() {
+		Room room = roomWith(4);
+		assertEquals(0, room.nextSlot());                 // niemand am Zug -> erster Spieler
+
+		room.setCurrentPlayerId("p3");
+		assertEquals(3, room.getCurrentSlot());
+		assertEquals(0, room.nextSlot());
+
+		room.getPlayer("p0").setConnected(false);
+		room.getPlayer("p1").setConnected(false);
+		assertEquals(2, room.nextSlot());
+
+		for (Player p : room.getPlayers()) p.setConnected(false);
+		assertEquals(0, room.nextSlot());                 // alle getrennt -> direkter Nachfolger
+	}
+
+	@Test
+	void playerWithoutBoundSessionCountsAsDisconnected() {
+		Room room = roomWith(2);
+		Player rest = new Player("p2", "Nur REST");
+		room.addPlayer(rest);
+		assertFalse(rest.isConnected());                  // per REST beigetreten, nie gebunden
+		assertFalse(rest.sessionClosed());
+
+		room.setCurrentPlayerId("p1");
+		assertEquals(0, room.nextSlot());                 // p2 wird übersprungen
+
+		assertTrue(rest.sessionOpened());
+		assertFalse(rest.sessionOpened());                // zweiter Tab
+		assertEquals(2, room.nextSlot());
+		assertFalse(rest.sessionClosed());
+		assertTrue(rest.sessionClosed());
+		assertFalse(rest.isConnected());
+	}
+
+	@Test
+	void currentPlayerIsResolvedBySlot() {
+		Room room = roomWith(3);
+		assertNull(room.getCurrentPlayerId());
+
+		room.setCurrentSlot(1);
+		assertEquals("p1", room.getCurrentPlayerId());
+		assertSame(room.getPlayer("p1"), room.getCurrentPlayer());
+		assertEquals(2, room.getPlayer("p2").getSlot());
+
+		room.setCurrentPlayerId("unbekannt");
+		assertEquals(Room.NO_PLAYER, room.getCurrentSlot());
+	}
+}
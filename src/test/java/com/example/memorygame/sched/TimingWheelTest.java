@@ -0,0 +1,34 @@
+package com.example.memorygame.sched;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+	@Test
+	void firesInDeadlineOrderAndSkipsCancelled() throws Exception {
+		List<String> fired = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(2);
+		// kleines Rad, damit die längeren Timer mehrere Umdrehungen brauchen
+		try (TimingWheel wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 8, Runnable::run, "test-wheel")) {
+			wheel.schedule(() -> { fired.add("late"); done.countDown(); }, 120, TimeUnit.MILLISECONDS);
+			wheel.schedule(() -> { fired.add("early"); done.countDown(); }, 20, TimeUnit.MILLISECONDS);
+			TimingWheel.Timeout cancelled = wheel.schedule(() -> fired.add("cancelled"), 60, TimeUnit.MILLISECONDS);
+
+			assertTrue(cancelled.cancel());
+			assertFalse(cancelled.cancel());
+			assertTrue(done.await(2, TimeUnit.SECONDS));
+
+			assertEquals(List.of("early", "late"), fired);
+			assertEquals(0, wheel.pendingTimers());
+			assertEquals(2, wheel.firedTimers());
+			assertEquals(1, wheel.cancelledTimers());
+		}
+	}
+}
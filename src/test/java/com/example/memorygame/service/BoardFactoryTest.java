@@ -0,0 +1,35 @@
+package com.example.memorygame.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardFactoryTest {
+
+	@Test
+	void everyPairAppearsExactlyTwice() {
+		for (int cards : new int[]{4, 16, 24, 400}) {
+			int[] board = BoardFactory.shuffle(cards, new SplittableRandom(cards));
+			int[] seen = new int[cards / 2];
+			for (int id : board) seen[id]++;
+			for (int n : seen) assertEquals(2, n);
+		}
+	}
+
+	@Test
+	void pooledAndDirectBoardsAreDistinctArrays() {
+		BoardFactory boards = new BoardFactory("4x6", 4);
+		int[] a = boards.shuffledPairs(24);                  // Pool noch leer -> direkt, Nachfüllen angestoßen
+		int[] b = boards.shuffledPairs(6 * 4);               // gleiche Kartenzahl, gleicher Pool
+		int[] c = boards.shuffledPairs(10 * 10);             // nicht gepoolt
+		assertEquals(24, a.length);
+		assertEquals(100, c.length);
+		assertNotSame(a, b);
+		assertEquals(3, boards.pooledTakes() + boards.directShuffles());
+		assertThrows(IllegalStateException.class, () -> RoomService.validateLayout(3, 5));
+		assertThrows(IllegalStateException.class, () -> RoomService.validateLayout(22, 2));
+		RoomService.validateLayout(3, 4);
+	}
+}
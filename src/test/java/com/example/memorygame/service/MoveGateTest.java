@@ -0,0 +1,40 @@
+package com.example.memorygame.service;
+
+import com.example.memorygame.model.Room;
+import com.example.memorygame.sched.GameScheduler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveGateTest {
+
+	@Test
+	void bucketAllowsBurstThenRejects() {
+		GameScheduler scheduler = new GameScheduler(10, 64, 1, false, 1);
+		try {
+			MoveGate gate = new MoveGate(0.001, 3, scheduler);
+			MoveGate.TokenBucket bucket = gate.newBucket();
+			for (int i = 0; i < 3; i++) assertTrue(bucket.tryTake());
+			assertFalse(bucket.tryTake());
+			assertSame(gate.bucketFor("p1"), gate.bucketFor("p1"));
+
+			MoveGate.TokenBucket unlimited = new MoveGate(0, 0, scheduler).newBucket();
+			for (int i = 0; i < 1000; i++) assertTrue(unlimited.tryTake());
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	void precheckRejectsWithoutTheMailbox() {
+		Room.TurnGate running = new Room.TurnGate(Room.State.RUNNING, "a", "t", false, 16);
+		assertEquals(MoveResult.OK, MoveGate.precheck(running, "a", 15));
+		assertEquals(MoveResult.NOT_YOUR_TURN, MoveGate.precheck(running, "b", 0));
+		assertEquals(MoveResult.INVALID_POS, MoveGate.precheck(running, "a", 16));
+		assertEquals(MoveResult.LOCKED, MoveGate.precheck(new Room.TurnGate(Room.State.RUNNING, "a", "t", true, 16), "a", 0));
+		assertTrue(running.tokenMatches("t"));
+		assertFalse(running.tokenMatches("x"));
+		assertFalse(running.tokenMatches(null));
+		assertEquals(MoveResult.NOT_RUNNING, MoveGate.precheck(new Room.TurnGate(Room.State.LOBBY, null, null, false, 0), "a", 0));
+	}
+}
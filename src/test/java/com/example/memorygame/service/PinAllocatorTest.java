@@ -0,0 +1,66 @@
+package com.example.memorygame.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PinAllocatorTest {
+
+	@Test
+	void feistelIsAPermutation() {
+		for (int n : new int[]{10, 10_000, 100_000}) {
+			PinAllocator.Feistel f = new PinAllocator.Feistel(n, new Random(n));
+			boolean[] seen = new boolean[n];
+			for (int i = 0; i < n; i++) {
+				int v = f.apply(i);
+				assertFalse(seen[v], "doppelt: " + v);
+				seen[v] = true;
+			}
+		}
+	}
+
+	@Test
+	void widensUnderLoadAndNeverHandsOutDuplicates() {
+		PinAllocator pins = new PinAllocator(2, 3, 0.5, 1.0, 0, p -> true, new Random(1));
+		Set<String> out = new HashSet<>();
+		for (int i = 0; i < 51; i++) assertTrue(out.add(pins.allocate(0)));
+		assertEquals(3, pins.activeDigits());
+		// alle 2-stelligen + alle 3-stelligen PINs sind vergebbar, dann ist Schluss
+		for (int i = 51; i < 1_100; i++) assertTrue(out.add(pins.allocate(0)));
+		assertThrows(IllegalStateException.class, () -> pins.allocate(0));
+	}
+
+	@Test
+	void releasedPinComesBackOnlyAfterCooldown() {
+		PinAllocator pins = new PinAllocator(1, 1, 1.0, 1.0, 1_000, p -> true, new Random(2));
+		for (int i = 0; i < 10; i++) pins.allocate(0);
+		pins.release("7", 100);
+		assertThrows(IllegalStateException.class, () -> pins.allocate(500));
+		assertEquals("7", pins.allocate(1_100));
+		assertEquals(10, pins.inUse());
+	}
+
+	@Test
+	void claimedAndReleasedPinIsNotHandedOutTwice() {
+		PinAllocator pins = new PinAllocator(1, 1, 1.0, 1.0, 1_000, p -> true, new Random(3));
+		assertTrue(pins.claim("5"));
+		pins.release("5", 0);
+		Set<String> out = new HashSet<>();
+		for (int i = 0; i < 9; i++) assertTrue(out.add(pins.allocate(10)));
+		assertFalse(out.contains("5"), "5 ist noch in der Sperrzeit");
+		assertThrows(IllegalStateException.class, () -> pins.allocate(10));
+		assertEquals("5", pins.allocate(2_000));
+		assertThrows(IllegalStateException.class, () -> pins.allocate(3_000));
+		assertEquals(10, pins.inUse());
+
+		// erneut per claim belegt, während sie abkühlt: kommt weder frisch noch aus der Freiliste
+		pins.release("5", 3_000);
+		assertTrue(pins.claim("5"));
+		assertThrows(IllegalStateException.class, () -> pins.allocate(10_000));
+		assertEquals(10, pins.inUse());
+	}
+}
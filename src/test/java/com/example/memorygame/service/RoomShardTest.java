@@ -0,0 +1,108 @@
+package com.example.memorygame.service;
+
+import com.example.memorygame.cluster.ClusterNodes;
+import com.example.memorygame.metrics.GameMetrics;
+import com.example.memorygame.model.Room;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomShardTest {
+
+	@Test
+	void homeIsEvenAndMovesFewPinsWhenShardsGrow() {
+		int[] counts = new int[8];
+		int moved = 0;
+		for (int p = 0; p < 100_000; p++) {
+			String pin = Integer.toString(p);
+			int home = RoomShard.home(pin, 8);
+			counts[home]++;
+			if (RoomShard.home(pin, 9) != home) {
+				moved++;
+				assertEquals(8, RoomShard.home(pin, 9));   // nur in den neuen Shard
+			}
+		}
+		for (int c : counts) assertEquals(12_500, c, 500);
+		assertEquals(100_000 / 9, moved, 500);
+	}
+
+	@Test
+	void blockedShardDoesNotStallOtherShardsAndPendingBroadcastsPinTheRoom() throws Exception {
+		RoomService rooms = new RoomService(new ClusterNodes("t", List.of()), new GameMetrics(new SimpleMeterRegistry()),
+				new BoardFactory("", 0), 100, Duration.ZERO, 4, 4, 1.0, 2);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			Room a = null;
+			List<Room> other = new ArrayList<>();
+			for (int p = 1000; a == null || other.size() < 3; p++) {
+				String pin = Integer.toString(p);
+				if (RoomShard.home(pin, 2) == 0) { if (a == null) a = rooms.restore("id-" + pin, pin); }
+				else if (other.size() < 3) other.add(rooms.restore("id-" + pin, pin));
+			}
+			CompletableFuture<Object> blocked = rooms.submit(a.getPin(), r -> { await(release); return null; });
+			assertEquals("room-1", rooms.submit(other.get(0).getPin(), r -> Thread.currentThread().getName())
+					.get(5, TimeUnit.SECONDS));
+
+			// Broadcasts stehen im Broadcast-Thread von Shard 1 -> diese Räume gelten nicht als ruhend
+			CountDownLatch sent = new CountDownLatch(3);
+			for (Room r : other) ((RoomMailbox) r.getMailbox()).dispatch(() -> { await(release); sent.countDown(); });
+			assertFalse(((RoomMailbox) other.get(2).getMailbox()).isIdle());
+			assertEquals(0, rooms.rebalance());
+
+			release.countDown();
+			blocked.get(5, TimeUnit.SECONDS);
+			assertTrue(sent.await(5, TimeUnit.SECONDS));
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (!other.stream().allMatch(r -> ((RoomMailbox) r.getMailbox()).isIdle()) && System.nanoTime() < deadline)
+				Thread.sleep(1);
+			assertEquals(1, rooms.rebalance());
+		} finally {
+			release.countDown();
+			rooms.shutdown();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	void rebalanceMovesIdleRoomsAndKeepsThemReachable() throws Exception {
+		RoomService rooms = new RoomService(new ClusterNodes("t", List.of()), new GameMetrics(new SimpleMeterRegistry()),
+				new BoardFactory("", 0), 100, Duration.ZERO, 4, 4, 1.0, 4);
+		try {
+			List<Room> crowded = new ArrayList<>();
+			for (int p = 1000; crowded.size() < 20; p++) {
+				String pin = Integer.toString(p);
+				if (RoomShard.home(pin, 4) == 0) crowded.add(rooms.restore("id-" + pin, pin));
+			}
+			crowded.get(0).setState(Room.State.RUNNING);
+
+			assertEquals(15, rooms.rebalance());
+			for (RoomShard.Load load : rooms.shardLoads()) assertEquals(5, load.rooms());
+			assertEquals(1, rooms.shardLoads().get(0).running());
+			assertEquals(0, crowded.get(0).getShard());
+
+			Room moved = crowded.stream().filter(r -> r.getShard() != 0).findFirst().orElseThrow();
+			assertSame(moved, rooms.findByPin(moved.getPin()).orElseThrow());
+			assertEquals(moved.getShard(), rooms.submit(moved.getPin(), Room::getShard).get());
+			assertTrue(rooms.remove(moved));
+			assertTrue(rooms.findByPin(moved.getPin()).isEmpty());
+			assertEquals(19, rooms.allRooms().size());
+		} finally {
+			rooms.shutdown();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.memorygame.tournament;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+	@Test
+	void ranksByScoreThenByWhoGotThereFirst() {
+		Leaderboard board = new Leaderboard();
+		board.update("a", "Anna", "1111", 0);
+		board.update("b", "Ben", "2222", 0);
+		board.update("c", "Cem", "1111", 0);
+		board.update("b", "Ben", "2222", 2);
+		board.update("a", "Anna", "1111", 2);   // gleichauf, aber später
+		board.update("c", "Cem", "1111", 1);
+
+		assertEquals(List.of("b", "a", "c"), board.top(10).stream().map(Leaderboard.Entry::playerId).toList());
+		assertEquals(List.of("b"), board.top(1).stream().map(Leaderboard.Entry::playerId).toList());
+		assertEquals(3, board.size());
+	}
+
+	@Test
+	void unchangedUpdateIsIgnoredAndResetMovesDown() {
+		Leaderboard board = new Leaderboard();
+		board.update("a", "Anna", "1111", 3);
+		board.update("b", "Ben", "2222", 1);
+		assertFalse(board.update("a", "Anna", "1111", 3));
+		assertTrue(board.update("a", "Anna", "1111", 0));   // Neustart mit zurückgesetzten Punkten
+
+		assertEquals(List.of("b", "a"), board.top(5).stream().map(Leaderboard.Entry::playerId).toList());
+		assertEquals(0, board.entry("a").score());
+	}
+}
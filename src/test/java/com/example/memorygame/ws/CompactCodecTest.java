@@ -0,0 +1,126 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.model.CardState;
+import com.example.memorygame.model.Player;
+import com.example.memorygame.model.Room;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCodecTest {
+
+	private final CompactCodec codec = new CompactCodec();
+
+	private static Room runningRoom(int size) {
+		Room room = new Room("id", "1234", Runnable::run);
+		for (int i = 0; i < 4; i++) {
+			Player p = new Player("p" + i, "Spieler " + i);
+			p.sessionOpened();
+			room.addPlayer(p);
+		}
+		int[] pairIds = new int[size * size];
+		for (int i = 0; i < pairIds.length; i++) pairIds[i] = i / 2;
+		room.initBoard(size, pairIds);
+		room.setState(Room.State.RUNNING);
+		room.setCurrentPlayerId("p2");
+		room.clearChanges();
+		return room;
+	}
+
+	@Test
+	void snapshotPacksCardStatesTwoBitsPerCard() {
+		Room room = runningRoom(4);
+		room.setCardState(5, CardState.REVEALED);
+		room.setCardState(0, CardState.MATCHED);
+		room.setCardState(1, CardState.MATCHED);
+		byte[] bin = codec.snapshot(room);
+
+		In in = new In(bin);
+		assertEquals(CompactCodec.FORMAT, in.u8());
+		assertEquals(CompactCodec.TYPE_STATE, in.u8());
+		assertEquals(room.getVersion(), in.varint());
+		assertTrue(in.varint() > 0);                                  // serverTime
+		assertEquals(Room.State.RUNNING.ordinal(), in.u8());
+		in.varint();                                                   // turnDeadline
+		assertEquals(3, in.varint());                                  // p2 = Index 2 + 1
+		assertEquals(4, in.varint());
+		for (int i = 0; i < 4; i++) {
+			assertEquals("p" + i, in.string());
+			assertEquals("Spieler " + i, in.string());
+			assertEquals(0, in.varint());
+			assertEquals(2, in.u8());                                  // verbunden
+		}
+		assertEquals(4, in.varint());
+		assertEquals(16, in.varint());
+		for (int pos = 0; pos < 16; pos++) {
+			int code = (bin[in.pos + (pos >> 2)] >> ((pos & 3) * 2)) & 3;
+			assertEquals(room.getCardState(pos).code(), code, "pos " + pos);
+		}
+		in.pos += 4;
+		for (int i = 0; i < 3; i++) assertEquals("", in.string());    // drei aufgedeckte Karten, kein Symbol
+		assertEquals(bin.length, in.pos);
+	}
+
+	@Test
+	void deltaCarriesOnlyChangedCardsAndScores() {
+		Room room = runningRoom(4);
+		room.setCardState(7, CardState.REVEALED);
+		room.getPlayer("p1").setScore(3);
+		room.getPlayer("p1").setConnected(false);
+		room.markPlayerChanged("p1");
+		long base = room.getVersion();
+		room.nextVersion();
+
+		In in = new In(codec.delta(room, base));
+		assertEquals(CompactCodec.FORMAT, in.u8());
+		assertEquals(CompactCodec.TYPE_DELTA, in.u8());
+		assertEquals(base + 1, in.varint());
+		assertEquals(base, in.varint());
+		in.varint(); in.u8(); in.varint(); in.varint();              // serverTime, state, deadline, current
+		assertEquals(1, in.varint());
+		assertEquals(1, in.varint());                                  // Index von p1
+		assertEquals(0, in.u8());                                      // nicht neu, getrennt -> ohne Name
+		assertEquals(3, in.varint());
+		assertEquals(1, in.varint());
+		assertEquals(7, in.varint());
+		assertEquals(CardState.REVEALED.code(), in.u8());
+	}
+
+	@Test
+	void largeBoardIsAnOrderOfMagnitudeSmallerThanJson() throws Exception {
+		Room room = runningRoom(20);
+		for (int pos = 0; pos < 40; pos++) room.setCardState(pos, CardState.MATCHED);
+		byte[] json = new ObjectMapper().writeValueAsBytes(new RoomPayloads().snapshot(room));
+		byte[] bin = codec.snapshot(room);
+		assertTrue(bin.length * 10 < json.length, bin.length + " vs " + json.length);
+	}
+
+	/** Minimaler Leser für das Format (Gegenstück zu room-sync.js). */
+	private static final class In {
+		final byte[] b;
+		int pos;
+
+		In(byte[] b) { this.b = b; }
+
+		int u8() { return b[pos++] & 0xFF; }
+
+		long varint() {
+			long v = 0;
+			for (int shift = 0; ; shift += 7) {
+				int x = u8();
+				v |= (long) (x & 0x7F) << shift;
+				if ((x & 0x80) == 0) return v;
+			}
+		}
+
+		String string() {
+			int n = (int) varint();
+			String s = new String(b, pos, n, StandardCharsets.UTF_8);
+			pos += n;
+			return s;
+		}
+	}
+}
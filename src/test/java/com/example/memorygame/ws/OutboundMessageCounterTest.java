@@ -0,0 +1,44 @@
+package com.example.memorygame.ws;
+
+import com.example.memorygame.metrics.GameMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundMessageCounterTest {
+
+	private static Message<byte[]> message(String dest, String original) {
+		SimpMessageHeaderAccessor h = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		h.setDestination(dest);
+		if (original != null) h.setHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, original);
+		return MessageBuilder.createMessage(new byte[0], h.getMessageHeaders());
+	}
+
+	@Test
+	void prefixDropsPinAndSessionSuffix() {
+		assertEquals("/topic/room", OutboundMessageCounter.prefix("/topic/room.1234.bin"));
+		assertEquals("/queue/errors", OutboundMessageCounter.prefix("/queue/errors-user3f2a9c1e"));
+		assertEquals("/queue/reply", OutboundMessageCounter.prefix("/queue/reply-userab.cd"));
+		assertEquals("/user/queue/errors", OutboundMessageCounter.prefix("/user/queue/errors"));
+	}
+
+	@Test
+	void userRepliesOfManySessionsShareOneCounter() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		OutboundMessageCounter counter = new OutboundMessageCounter(new GameMetrics(registry));
+		for (int s = 0; s < 50; s++) {
+			counter.afterSendCompletion(message("/queue/errors-user" + s, "/user/queue/errors"), null, true, null);
+			counter.afterSendCompletion(message("/queue/reply-user" + s, null), null, true, null);
+		}
+		counter.afterSendCompletion(message("/topic/room.1234", null), null, true, null);
+
+		assertEquals(3, registry.find("memorygame.ws.outbound").counters().size());
+		assertEquals(50, registry.get("memorygame.ws.outbound").tag("destination", "/user/queue/errors").counter().count());
+		assertEquals(50, registry.get("memorygame.ws.outbound").tag("destination", "/queue/reply").counter().count());
+	}
+}